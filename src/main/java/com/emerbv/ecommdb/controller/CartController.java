@@ -2,7 +2,6 @@ package com.emerbv.ecommdb.controller;
 
 import com.emerbv.ecommdb.dto.CartDto;
 import com.emerbv.ecommdb.exceptions.ResourceNotFoundException;
-import com.emerbv.ecommdb.model.Cart;
 import com.emerbv.ecommdb.response.ApiResponse;
 import com.emerbv.ecommdb.service.cart.ICartService;
 import lombok.RequiredArgsConstructor;
@@ -22,13 +21,8 @@ public class CartController {
     @GetMapping("/user/{userId}/my-cart")
     public ResponseEntity<ApiResponse> getUserCart(@PathVariable Long userId) {
         try {
-            Cart cart = cartService.getCartByUserId(userId);
-
-            // Make sure to recalculate the total before returning
-            cart.updateTotalAmount();
-            Cart updatedCart = cartService.getCart(cart.getId());
-
-            CartDto cartDto = cartService.convertToDto(updatedCart);
+            // Read-only view in one query, nothing is written on a cart page view
+            CartDto cartDto = cartService.getCartViewByUserId(userId);
             return ResponseEntity.ok(new ApiResponse("Success", cartDto));
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
@@ -48,10 +42,7 @@ public class CartController {
     @GetMapping("/{cartId}/cart/total-price")
     public ResponseEntity<ApiResponse> getTotalAmount(@PathVariable Long cartId) {
         try {
-            Cart cart = cartService.getCart(cartId);
-            // Ensure the total is recalculated
-            cart.updateTotalAmount();
-            BigDecimal totalPrice = cart.getTotalAmount();
+            BigDecimal totalPrice = cartService.getTotalPrice(cartId);
             return ResponseEntity.ok(new ApiResponse("Total Price", totalPrice));
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
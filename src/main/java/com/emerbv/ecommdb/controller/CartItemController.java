@@ -4,6 +4,7 @@ import com.emerbv.ecommdb.dto.CartDto;
 import com.emerbv.ecommdb.exceptions.ResourceNotFoundException;
 import com.emerbv.ecommdb.model.Cart;
 import com.emerbv.ecommdb.model.User;
+import com.emerbv.ecommdb.request.CartOperationRequest;
 import com.emerbv.ecommdb.response.ApiResponse;
 import com.emerbv.ecommdb.service.cart.ICartItemService;
 import com.emerbv.ecommdb.service.cart.ICartService;
@@ -13,6 +14,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 import static org.springframework.http.HttpStatus.UNAUTHORIZED;
 
@@ -63,7 +67,7 @@ public class CartItemController {
             }
 
             // Get the updated cart to return as part of the response
-            Cart updatedCart = cartService.getCartByUserId(user.getId());
+            Cart updatedCart = cartService.getCart(cart.getId());
             CartDto cartDto = cartService.convertToDto(updatedCart);
 
             return ResponseEntity.ok(new ApiResponse("Add Item Success", cartDto));
@@ -74,6 +78,26 @@ public class CartItemController {
         }
     }
 
+    @PostMapping("/items/batch")
+    public ResponseEntity<ApiResponse> applyCartOperations(@RequestBody List<CartOperationRequest> operations) {
+        try {
+            User user = userService.getAuthenticatedUser();
+            Cart cart = cartService.initializeNewCart(user);
+            cartItemService.applyOperations(cart.getId(), operations);
+
+            Cart updatedCart = cartService.getCart(cart.getId());
+            CartDto cartDto = cartService.convertToDto(updatedCart);
+
+            return ResponseEntity.ok(new ApiResponse("Cart Updated Successfully", cartDto));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
+        } catch (JwtException e) {
+            return ResponseEntity.status(UNAUTHORIZED).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
     @DeleteMapping("/cart/{cartId}/item/{productId}/remove")
     public ResponseEntity<ApiResponse> removeItemFromCart(
             @PathVariable Long cartId,
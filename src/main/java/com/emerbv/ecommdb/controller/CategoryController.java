@@ -5,17 +5,18 @@ import com.emerbv.ecommdb.exceptions.AlreadyExistsException;
 import com.emerbv.ecommdb.exceptions.ResourceNotFoundException;
 import com.emerbv.ecommdb.model.Category;
 import com.emerbv.ecommdb.response.ApiResponse;
+import com.emerbv.ecommdb.service.category.ICategoryDirectoryService;
 import com.emerbv.ecommdb.service.category.ICategoryService;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import com.emerbv.ecommdb.web.StoredContentWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.List;
 
 import static org.springframework.http.HttpStatus.*;
@@ -26,12 +27,13 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 @RequestMapping("${api.prefix}/categories")
 public class CategoryController {
     private final ICategoryService categoryService;
+    private final ICategoryDirectoryService categoryDirectoryService;
+    private final StoredContentWriter contentWriter;
 
     @GetMapping("/all")
     public ResponseEntity<ApiResponse> getAllCategories() {
         try {
-            List<Category> categories = categoryService.getAllCategories();
-            List<CategoryDto> categoryDtos = categoryService.convertToDtoList(categories);
+            List<CategoryDto> categoryDtos = categoryDirectoryService.getDirectory();
             return ResponseEntity.ok(new ApiResponse("Found!", categoryDtos));
         } catch (Exception e) {
             return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse("Error:", INTERNAL_SERVER_ERROR));
@@ -116,22 +118,23 @@ public class CategoryController {
     }
 
     @GetMapping("/images/download/{categoryId}")
-    public ResponseEntity<Resource> getCategoryImage(@PathVariable Long categoryId) {
+    public void getCategoryImage(
+            @PathVariable Long categoryId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         try {
-            byte[] imageData = categoryService.getCategoryImage(categoryId);
-            ByteArrayResource resource = new ByteArrayResource(imageData);
-
             Category category = categoryService.getCategoryById(categoryId);
-
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(category.getImageFileType()))
-                    .header(HttpHeaders.CONTENT_DISPOSITION,
-                            "attachment; filename=\"" + category.getImageFileName() + "\"")
-                    .body(resource);
+            if (category.getImageStorageKey() != null) {
+                contentWriter.write(request, response, category.getImageStorageKey(),
+                        category.getImageFileType(), category.getImageFileName(),
+                        contentWriter.isCurrentVersion(request, category.getImageStorageKey()));
+            } else if (category.getImage() != null) {
+                contentWriter.writeBlob(response, category.getImage(), category.getImageFileType(), category.getImageFileName());
+            } else {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            }
         } catch (ResourceNotFoundException e) {
-            return ResponseEntity.notFound().build();
-        } catch (Exception e) {
-            return ResponseEntity.status(INTERNAL_SERVER_ERROR).build();
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
         }
     }
 
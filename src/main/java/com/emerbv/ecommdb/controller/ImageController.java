@@ -1,23 +1,28 @@
 package com.emerbv.ecommdb.controller;
 
-import com.emerbv.ecommdb.dto.ImageDto;
+import com.emerbv.ecommdb.dto.ImageUploadResultDto;
 import com.emerbv.ecommdb.exceptions.ResourceNotFoundException;
+import com.emerbv.ecommdb.enums.ImageSize;
 import com.emerbv.ecommdb.model.Image;
+import com.emerbv.ecommdb.model.ImageRendition;
 import com.emerbv.ecommdb.response.ApiResponse;
+import com.emerbv.ecommdb.service.image.IImageRenditionService;
 import com.emerbv.ecommdb.service.image.IImageService;
+import com.emerbv.ecommdb.web.StoredContentWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.sql.SQLException;
+import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
+import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.MULTI_STATUS;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 @RequiredArgsConstructor
@@ -25,26 +30,68 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 @RequestMapping("${api.prefix}/images")
 public class ImageController {
     private final IImageService imageService;
+    private final IImageRenditionService renditionService;
+    private final StoredContentWriter contentWriter;
 
     @PostMapping("/upload")
     public ResponseEntity<ApiResponse> saveImages(
             @RequestParam("files") List<MultipartFile> files,
             @RequestParam("productId") Long productId) {
         try {
-            List<ImageDto> imageDtos = imageService.saveImages(productId, files);
-            return ResponseEntity.ok(new ApiResponse("Images Uploaded successfully!", imageDtos));
+            List<ImageUploadResultDto> results = imageService.saveImages(productId, files);
+            long failed = results.stream().filter(result -> result.getError() != null).count();
+            if (failed == 0) {
+                return ResponseEntity.ok(new ApiResponse("Images Uploaded successfully!", results));
+            }
+            if (failed == results.size()) {
+                return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse("Upload failed!", results));
+            }
+            return ResponseEntity.status(MULTI_STATUS)
+                    .body(new ApiResponse(failed + " of " + results.size() + " images could not be uploaded", results));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
         } catch (Exception e) {
             return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse("Upload failed!", e.getMessage()));
         }
     }
 
     @GetMapping("/image/download/{imageId}")
-    public ResponseEntity<Resource> downloadImage(@PathVariable Long imageId) throws SQLException {
-        Image image = imageService.getImageById(imageId);
-        ByteArrayResource resource = new ByteArrayResource(image.getImage().getBytes(1, (int) image.getImage().length()));
-        return  ResponseEntity.ok().contentType(MediaType.parseMediaType(image.getFileType()))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + image.getFileName() + "\"")
-                .body(resource);
+    public void downloadImage(
+            @PathVariable Long imageId,
+            @RequestParam(required = false) String size,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        try {
+            Optional<ImageSize> imageSize = ImageSize.from(size);
+            if (imageSize.isPresent()) {
+                Image image = imageService.getImageWithRenditions(imageId);
+                Optional<ImageRendition> rendition = image.getRendition(imageSize.get());
+                if (rendition.isPresent()) {
+                    // Renditions derive from the original, the URL version is the original's
+                    contentWriter.write(request, response, rendition.get().getStorageKey(),
+                            rendition.get().getFileType(), image.getFileName(),
+                            contentWriter.isCurrentVersion(request, image.getStorageKey()));
+                    return;
+                }
+                // Images stored before renditions existed get them now, this request gets the original
+                if (image.getStorageKey() != null && image.getRenditions().isEmpty()) {
+                    renditionService.requestRenditions(imageId);
+                }
+            }
+
+            Image image = imageService.getImageById(imageId);
+            if (image.getStorageKey() != null) {
+                // The original served in place of a missing rendition must not be cached under the rendition URL
+                boolean immutable = imageSize.isEmpty() && contentWriter.isCurrentVersion(request, image.getStorageKey());
+                contentWriter.write(request, response, image.getStorageKey(), image.getFileType(), image.getFileName(), immutable);
+            } else if (image.getImage() != null) {
+                contentWriter.writeBlob(response, image.getImage(), image.getFileType(), image.getFileName());
+            } else {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            }
+        } catch (ResourceNotFoundException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+        }
     }
 
     @PutMapping("/image/{imageId}/update")
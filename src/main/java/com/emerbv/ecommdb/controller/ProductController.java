@@ -2,26 +2,47 @@ package com.emerbv.ecommdb.controller;
 
 import com.emerbv.ecommdb.dto.ProductDto;
 import com.emerbv.ecommdb.dto.ProductFilterDto;
+import com.emerbv.ecommdb.dto.ProductImportResultDto;
 import com.emerbv.ecommdb.enums.ProductStatus;
 import com.emerbv.ecommdb.exceptions.AlreadyExistsException;
 import com.emerbv.ecommdb.exceptions.ResourceNotFoundException;
 import com.emerbv.ecommdb.model.Product;
+import com.emerbv.ecommdb.request.ProductImportRequest;
 import com.emerbv.ecommdb.request.ProductRequest;
 import com.emerbv.ecommdb.response.ApiResponse;
+import com.emerbv.ecommdb.service.catalog.ICatalogService;
+import com.emerbv.ecommdb.service.export.ExportFormat;
+import com.emerbv.ecommdb.service.export.IProductExportService;
+import com.emerbv.ecommdb.service.facet.IProductFacetService;
+import com.emerbv.ecommdb.service.product.IProductImportService;
 import com.emerbv.ecommdb.service.product.IProductService;
+import com.emerbv.ecommdb.service.ranking.IProductRankingService;
+import com.emerbv.ecommdb.service.search.IProductSearchService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
@@ -30,16 +51,31 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 @RestController
 @RequestMapping("${api.prefix}/products")
 public class ProductController {
+    private static final int MAX_PAGE_SIZE = 100;
+    // The whole list is deleted in one transaction, this bounds the rows it locks and the request time
+    private static final int MAX_BULK_DELETE = 500;
+
     private final IProductService productService;
+    private final ICatalogService catalogService;
+    private final IProductSearchService searchService;
+    private final IProductFacetService facetService;
+    private final IProductRankingService rankingService;
+    private final IProductExportService exportService;
+    private final IProductImportService importService;
+
+    @Value("${app.export.timeout-ms:600000}")
+    private long exportTimeoutMs;
 
     @GetMapping("/all")
-    public ResponseEntity<ApiResponse> getAllProducts() {
+    public ResponseEntity<ApiResponse> getAllProducts(WebRequest webRequest) {
         try {
-            List<Product> products = productService.getAllProducts();
-            if (products.isEmpty()) {
+            if (isCatalogNotModified(webRequest)) {
+                return null;
+            }
+            List<ProductDto> convertedProducts = catalogService.getAllProducts();
+            if (convertedProducts.isEmpty()) {
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("No products found ", null));
             }
-            List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
             return  ResponseEntity.ok(new ApiResponse("success", convertedProducts));
         } catch (Exception e) {
             return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse(e.getMessage(), null));
@@ -47,10 +83,16 @@ public class ProductController {
     }
 
     @GetMapping("/product/{productId}/product")
-    public ResponseEntity<ApiResponse> getProductById(@PathVariable Long productId) {
+    public ResponseEntity<ApiResponse> getProductById(@PathVariable Long productId, WebRequest webRequest) {
         try {
-            Product product = productService.getProductById(productId);
-            ProductDto productDto = productService.convertToDto(product);
+            Optional<ProductDto> cachedProduct = catalogService.getProductById(productId);
+            // Answered from the snapshot: a 304 never touches the database nor converts the entity
+            if (cachedProduct.isPresent() && webRequest.checkNotModified(
+                    productETag(cachedProduct.get()), lastModified(cachedProduct.get()))) {
+                return null;
+            }
+            ProductDto productDto = cachedProduct
+                    .orElseGet(() -> productService.convertToDto(productService.getProductById(productId)));
             return  ResponseEntity.ok(new ApiResponse("success", productDto));
         } catch (ResourceNotFoundException e) {
             return ResponseEntity.status(NOT_FOUND).body(new ApiResponse(e.getMessage(), null));
@@ -71,6 +113,18 @@ public class ProductController {
         }
     }
 
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/import")
+    public ResponseEntity<ApiResponse> importProducts(@RequestBody List<ProductImportRequest> products) {
+        try {
+            ProductImportResultDto result = importService.importProducts(products);
+            return ResponseEntity.ok(new ApiResponse("Import finished", result));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse("Error importing products", e.getMessage()));
+        }
+    }
+
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("/product/{productId}/update")
     public  ResponseEntity<ApiResponse> updateProduct(
@@ -97,17 +151,45 @@ public class ProductController {
         }
     }
 
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<ApiResponse> deleteProducts(@RequestBody List<Long> productIds) {
+        if (productIds.size() > MAX_BULK_DELETE) {
+            return ResponseEntity.status(BAD_REQUEST)
+                    .body(new ApiResponse("At most " + MAX_BULK_DELETE + " products can be deleted per request", null));
+        }
+        try {
+            List<Long> deletedIds = productService.deleteProductsByIds(productIds);
+            Set<Long> deleted = new HashSet<>(deletedIds);
+            List<Long> notFoundIds = productIds.stream()
+                    .filter(id -> id != null && !deleted.contains(id))
+                    .distinct()
+                    .toList();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("deleted", deletedIds);
+            response.put("notFound", notFoundIds);
+            return ResponseEntity.ok(new ApiResponse("Deleted " + deletedIds.size() + " products", response));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse("Error deleting products", e.getMessage()));
+        }
+    }
+
     @GetMapping("/products/by/brand-and-name")
     public ResponseEntity<ApiResponse> getProductByBrandAndName(
             @RequestParam String brandName,
-            @RequestParam String productName
+            @RequestParam String productName,
+            WebRequest webRequest
     ) {
         try {
-            List<Product> products = productService.getProductsByBrandAndName(brandName, productName);
-            if (products.isEmpty()) {
+            if (isCatalogNotModified(webRequest)) {
+                return null;
+            }
+            List<ProductDto> convertedProducts = catalogService.getProductsByBrandAndName(brandName, productName);
+            if (convertedProducts.isEmpty()) {
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("No products found ", null));
             }
-            List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
             return  ResponseEntity.ok(new ApiResponse("success", convertedProducts));
         } catch (Exception e) {
             return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse(e.getMessage(), null));
@@ -117,14 +199,17 @@ public class ProductController {
     @GetMapping("/products/by/category-and-brand")
     public ResponseEntity<ApiResponse> getProductByCategoryAndBrand(
             @RequestParam String category,
-            @RequestParam String brand
+            @RequestParam String brand,
+            WebRequest webRequest
     ) {
         try {
-            List<Product> products = productService.getProductsByCategoryAndBrand(category, brand);
-            if (products.isEmpty()) {
+            if (isCatalogNotModified(webRequest)) {
+                return null;
+            }
+            List<ProductDto> convertedProducts = catalogService.getProductsByCategoryAndBrand(category, brand);
+            if (convertedProducts.isEmpty()) {
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("No products found ", null));
             }
-            List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
             return  ResponseEntity.ok(new ApiResponse("success", convertedProducts));
         } catch (Exception e) {
             return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse("error", e.getMessage()));
@@ -132,27 +217,64 @@ public class ProductController {
     }
 
     @GetMapping("/products/{name}/products")
-    public ResponseEntity<ApiResponse> getProductByName(@PathVariable String name) {
+    public ResponseEntity<ApiResponse> getProductByName(@PathVariable String name, WebRequest webRequest) {
         try {
-            List<Product> products = productService.getProductsByName(name);
-            if (products.isEmpty()) {
+            if (isCatalogNotModified(webRequest)) {
+                return null;
+            }
+            // Substring match on the name, ranked full-text search lives under /search
+            List<ProductDto> convertedProducts = catalogService.getProductsByNameContaining(name);
+            if (convertedProducts.isEmpty()) {
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("No products found ", null));
             }
-            List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
             return  ResponseEntity.ok(new ApiResponse("success", convertedProducts));
         } catch (Exception e) {
             return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse("error", e.getMessage()));
         }
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse> searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest webRequest) {
+        try {
+            if (isCatalogNotModified(webRequest)) {
+                return null;
+            }
+            Page<ProductDto> results = searchService.search(q, PageRequest.of(page, size));
+            if (results.isEmpty()) {
+                return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("No products found ", null));
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("query", q);
+            response.put("products", results.getContent());
+            response.put("totalElements", results.getTotalElements());
+            response.put("totalPages", results.getTotalPages());
+            response.put("currentPage", results.getNumber());
+            response.put("size", results.getSize());
+
+            return ResponseEntity.ok(new ApiResponse("success", response));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse("Error searching products", e.getMessage()));
+        }
+    }
+
     @GetMapping("/product/by-brand")
-    public ResponseEntity<ApiResponse> findProductByBrand(@RequestParam String brand) {
+    public ResponseEntity<ApiResponse> findProductByBrand(@RequestParam String brand, WebRequest webRequest) {
         try {
-            List<Product> products = productService.getProductsByBrand(brand);
-            if (products.isEmpty()) {
+            if (isCatalogNotModified(webRequest)) {
+                return null;
+            }
+            List<ProductDto> convertedProducts = catalogService.getProductsByBrand(brand);
+            if (convertedProducts.isEmpty()) {
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("No products found ", null));
             }
-            List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
             return  ResponseEntity.ok(new ApiResponse("success", convertedProducts));
         } catch (Exception e) {
             return ResponseEntity.ok(new ApiResponse(e.getMessage(), null));
@@ -160,13 +282,15 @@ public class ProductController {
     }
 
     @GetMapping("/product/{category}/all/products")
-    public ResponseEntity<ApiResponse> findProductsByCategory(@PathVariable String category) {
+    public ResponseEntity<ApiResponse> findProductsByCategory(@PathVariable String category, WebRequest webRequest) {
         try {
-            List<Product> products = productService.getProductsByCategory(category);
-            if (products.isEmpty()) {
+            if (isCatalogNotModified(webRequest)) {
+                return null;
+            }
+            List<ProductDto> convertedProducts = catalogService.getProductsByCategory(category);
+            if (convertedProducts.isEmpty()) {
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("No products found ", null));
             }
-            List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
             return  ResponseEntity.ok(new ApiResponse("success", convertedProducts));
         } catch (Exception e) {
             return ResponseEntity.ok(new ApiResponse(e.getMessage(), null));
@@ -174,13 +298,15 @@ public class ProductController {
     }
 
     @GetMapping("/product/{status}/products")
-    public ResponseEntity<ApiResponse> findProductsByStatus(@PathVariable ProductStatus status) {
+    public ResponseEntity<ApiResponse> findProductsByStatus(@PathVariable ProductStatus status, WebRequest webRequest) {
         try {
-            List<Product> products = productService.getProductsByStatus(status);
-            if (products.isEmpty()) {
+            if (isCatalogNotModified(webRequest)) {
+                return null;
+            }
+            List<ProductDto> convertedProducts = catalogService.getProductsByStatus(status);
+            if (convertedProducts.isEmpty()) {
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("No products found ", null));
             }
-            List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
             return  ResponseEntity.ok(new ApiResponse("success", convertedProducts));
         } catch (Exception e) {
             return ResponseEntity.ok(new ApiResponse(e.getMessage(), null));
@@ -188,41 +314,57 @@ public class ProductController {
     }
 
     @GetMapping("/product/best-sellers/products")
-    public ResponseEntity<ApiResponse> findProductsBySalesCount() {
+    public ResponseEntity<ApiResponse> findProductsBySalesCount(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String category) {
         try {
-            List<Product> products = productService.getProductsBySalesCount();
-            if (products.isEmpty()) {
+            List<ProductDto> convertedProducts = rankingService.getBestSellers(limit, category);
+            if (convertedProducts.isEmpty()) {
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("No products found ", null));
             }
-            List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
             return  ResponseEntity.ok(new ApiResponse("success", convertedProducts));
         } catch (Exception e) {
-            return ResponseEntity.ok(new ApiResponse(e.getMessage(), null));
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse(e.getMessage(), null));
         }
     }
 
     @GetMapping("/product/most-desired/products")
-    public ResponseEntity<ApiResponse> findProductsByWishCount() {
+    public ResponseEntity<ApiResponse> findProductsByWishCount(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String category) {
         try {
-            List<Product> products = productService.getProductsByWishCount();
-            if (products.isEmpty()) {
+            List<ProductDto> convertedProducts = rankingService.getMostWished(limit, category);
+            if (convertedProducts.isEmpty()) {
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("No products found ", null));
             }
-            List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
             return  ResponseEntity.ok(new ApiResponse("success", convertedProducts));
         } catch (Exception e) {
-            return ResponseEntity.ok(new ApiResponse(e.getMessage(), null));
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse(e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/product/trending/products")
+    public ResponseEntity<ApiResponse> findTrendingProducts(
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String category) {
+        try {
+            List<ProductDto> convertedProducts = rankingService.getTrending(limit, category);
+            if (convertedProducts.isEmpty()) {
+                return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("No products found ", null));
+            }
+            return  ResponseEntity.ok(new ApiResponse("success", convertedProducts));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body(new ApiResponse(e.getMessage(), null));
         }
     }
 
     @GetMapping("/product/recent/products")
     public ResponseEntity<ApiResponse> findRecentProducts() {
         try {
-            List<Product> products = productService.getRecentProducts();
-            if (products.isEmpty()) {
+            List<ProductDto> convertedProducts = catalogService.getRecentProducts();
+            if (convertedProducts.isEmpty()) {
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("No products found ", null));
             }
-            List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
             return  ResponseEntity.ok(new ApiResponse("success", convertedProducts));
         } catch (Exception e) {
             return ResponseEntity.ok(new ApiResponse(e.getMessage(), null));
@@ -230,13 +372,15 @@ public class ProductController {
     }
 
     @GetMapping("/product/pre-order/all")
-    public ResponseEntity<ApiResponse> findAllPreOrderProducts() {
+    public ResponseEntity<ApiResponse> findAllPreOrderProducts(WebRequest webRequest) {
         try {
-            List<Product> products = productService.getPreOrderProducts();
-            if (products.isEmpty()) {
+            if (isCatalogNotModified(webRequest)) {
+                return null;
+            }
+            List<ProductDto> convertedProducts = catalogService.getPreOrderProducts();
+            if (convertedProducts.isEmpty()) {
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("No pre-order products found", null));
             }
-            List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
             return ResponseEntity.ok(new ApiResponse("success", convertedProducts));
         } catch (Exception e) {
             return ResponseEntity.ok(new ApiResponse(e.getMessage(), null));
@@ -244,13 +388,15 @@ public class ProductController {
     }
 
     @GetMapping("/product/pre-order/{status}/products")
-    public ResponseEntity<ApiResponse> findPreOrderProductsByStatus(@PathVariable ProductStatus status) {
+    public ResponseEntity<ApiResponse> findPreOrderProductsByStatus(@PathVariable ProductStatus status, WebRequest webRequest) {
         try {
-            List<Product> products = productService.getPreOrderProductsByStatus(status);
-            if (products.isEmpty()) {
+            if (isCatalogNotModified(webRequest)) {
+                return null;
+            }
+            List<ProductDto> convertedProducts = catalogService.getPreOrderProductsByStatus(status);
+            if (convertedProducts.isEmpty()) {
                 return ResponseEntity.status(NOT_FOUND).body(new ApiResponse("No pre-order products found with status " + status, null));
             }
-            List<ProductDto> convertedProducts = productService.getConvertedProducts(products);
             return ResponseEntity.ok(new ApiResponse("success", convertedProducts));
         } catch (Exception e) {
             return ResponseEntity.ok(new ApiResponse(e.getMessage(), null));
@@ -286,6 +432,56 @@ public class ProductController {
 
      */
 
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.from(format);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return null;
+        }
+
+        response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"products." + exportFormat.getExtension() + "\"");
+        // Written straight to the response as the products are read, nothing is buffered in memory.
+        // A full export can take minutes, the long timeout applies to this request only
+        return new WebAsyncTask<>(exportTimeoutMs, () -> {
+            exportService.exportProducts(exportFormat, response.getOutputStream());
+            return null;
+        });
+    }
+
+    @GetMapping("/catalog/info")
+    public ResponseEntity<ApiResponse> getCatalogInfo() {
+        return ResponseEntity.ok(new ApiResponse("Catalog snapshot info", catalogService.getCatalogInfo()));
+    }
+
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping("/catalog/rebuild")
+    public ResponseEntity<ApiResponse> rebuildCatalog() {
+        try {
+            catalogService.rebuild();
+            return ResponseEntity.ok(new ApiResponse("Catalog snapshot rebuilt", catalogService.getCatalogInfo()));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse("Error rebuilding catalog snapshot", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/search/info")
+    public ResponseEntity<ApiResponse> getSearchIndexInfo() {
+        return ResponseEntity.ok(new ApiResponse("Search index info", searchService.getIndexInfo()));
+    }
+
+    @GetMapping("/ranking/info")
+    public ResponseEntity<ApiResponse> getRankingInfo() {
+        return ResponseEntity.ok(new ApiResponse("Ranking info", rankingService.getRankingInfo()));
+    }
+
     @GetMapping("/product/count/by-brand/and-name")
     public ResponseEntity<ApiResponse> countProductsByBrandAndName(@RequestParam String brand, @RequestParam String name) {
         try {
@@ -298,10 +494,10 @@ public class ProductController {
 
     @GetMapping("/most-wished")
     public ResponseEntity<ApiResponse> getMostWishedProducts(
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String category) {
         try {
-            List<Product> products = productService.getMostWishedProducts(limit);
-            List<ProductDto> productDtos = productService.getConvertedProducts(products);
+            List<ProductDto> productDtos = rankingService.getMostWished(limit, category);
             return ResponseEntity.ok(new ApiResponse("Most wished products retrieved successfully", productDtos));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -327,27 +523,24 @@ public class ProductController {
         filterDto.setMinPrice(minPrice);
         filterDto.setMaxPrice(maxPrice);
         filterDto.setBrand(brand);
-        filterDto.setPage(page);
-        filterDto.setSize(size);
+        filterDto.setPage(Math.max(page, 0));
+        filterDto.setSize(Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
 
         try {
-            Page<Product> products = productService.getFilteredProducts(filterDto);
+            Page<ProductDto> products = facetService.getFilteredProducts(filterDto);
 
             if (products.isEmpty()) {
                 return ResponseEntity.status(NOT_FOUND)
                         .body(new ApiResponse("No products found matching your criteria", null));
             }
 
-            List<ProductDto> productDtos = products.getContent().stream()
-                    .map(productService::convertToDto)
-                    .collect(Collectors.toList());
-
             Map<String, Object> response = new HashMap<>();
-            response.put("products", productDtos);
+            response.put("products", products.getContent());
             response.put("totalElements", products.getTotalElements());
             response.put("totalPages", products.getTotalPages());
             response.put("currentPage", products.getNumber());
             response.put("size", products.getSize());
+            response.put("facets", facetService.getFacets(filterDto));
 
             return ResponseEntity.ok(new ApiResponse("Products filtered successfully", response));
         } catch (Exception e) {
@@ -355,4 +548,67 @@ public class ProductController {
                     .body(new ApiResponse("Error filtering products", e.getMessage()));
         }
     }
+
+    @GetMapping("/filter/scroll")
+    public ResponseEntity<ApiResponse> scrollFilteredProducts(
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(required = false) ProductStatus availability,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        ProductFilterDto filterDto = new ProductFilterDto();
+        filterDto.setSortBy(sortBy);
+        filterDto.setAvailability(availability);
+        filterDto.setCategory(category);
+        filterDto.setMinPrice(minPrice);
+        filterDto.setMaxPrice(maxPrice);
+        filterDto.setBrand(brand);
+        filterDto.setCursor(cursor);
+        filterDto.setSize(Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+
+        try {
+            Window<Product> products = productService.scrollFilteredProducts(filterDto);
+
+            if (products.isEmpty()) {
+                return ResponseEntity.status(NOT_FOUND)
+                        .body(new ApiResponse("No products found matching your criteria", null));
+            }
+
+            List<ProductDto> productDtos = productService.getConvertedProducts(products.getContent());
+            String nextCursor = productService.getNextCursor(filterDto, products);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("products", productDtos);
+            response.put("nextCursor", nextCursor);
+            response.put("hasNext", nextCursor != null);
+            response.put("size", products.size());
+
+            return ResponseEntity.ok(new ApiResponse("Products filtered successfully", response));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(BAD_REQUEST).body(new ApiResponse(e.getMessage(), null));
+        } catch (Exception e) {
+            return ResponseEntity.status(INTERNAL_SERVER_ERROR)
+                    .body(new ApiResponse("Error filtering products", e.getMessage()));
+        }
+    }
+
+    private boolean isCatalogNotModified(WebRequest webRequest) {
+        // List responses are derived from the snapshot, its version changes whenever any of them may change
+        return webRequest.checkNotModified(catalogService.getCatalogETag(), catalogService.getLastModified());
+    }
+
+    private static String productETag(ProductDto product) {
+        return "p" + product.getId() + "-" + product.getVersion();
+    }
+
+    private static long lastModified(ProductDto product) {
+        LocalDateTime lastModifiedAt = product.getLastModifiedAt() != null
+                ? product.getLastModifiedAt()
+                : product.getCreatedAt();
+        return lastModifiedAt != null ? lastModifiedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
 }
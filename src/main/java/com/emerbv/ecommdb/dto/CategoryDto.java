@@ -2,6 +2,8 @@ package com.emerbv.ecommdb.dto;
 
 import lombok.Data;
 
+import java.math.BigDecimal;
+
 @Data
 public class CategoryDto {
     private Long id;
@@ -9,4 +11,10 @@ public class CategoryDto {
     private String imageFileName;
     private String imageFileType;
     private String imageDownloadUrl;
+
+    // Only filled in the category directory (/categories/all)
+    private Integer productCount;
+    private Integer inStockCount;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
 }
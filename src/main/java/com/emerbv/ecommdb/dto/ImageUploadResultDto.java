@@ -0,0 +1,11 @@
+package com.emerbv.ecommdb.dto;
+
+import lombok.Data;
+
+@Data
+public class ImageUploadResultDto {
+    private String fileName;
+    // Set when the file was stored, error is set otherwise
+    private ImageDto image;
+    private String error;
+}
@@ -24,6 +24,8 @@ public class ProductDto {
     private int wishCount;
     private boolean preOrder;
     private LocalDateTime createdAt;
+    private long version;
+    private LocalDateTime lastModifiedAt;
     private List<VariantDto> variants;
     private List<ImageDto> images;
 }
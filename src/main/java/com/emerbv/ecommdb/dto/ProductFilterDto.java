@@ -23,4 +23,7 @@ public class ProductFilterDto {
     private int size = 20;
 
     private Sort.Direction direction = Sort.Direction.ASC;
+
+    // Opaque keyset cursor returned by the previous scroll request, empty for the first one
+    private String cursor;
 } 
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.emerbv.ecommdb.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ProductImportResultDto {
+    private int received;
+    private int imported;
+    private int duplicates;
+    private int failed;
+    private int categoriesCreated;
+    private int variantsImported;
+    private long durationMs;
+    private double productsPerSecond;
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        private int row;
+        private String name;
+        private String brand;
+        private String message;
+    }
+}
@@ -0,0 +1,30 @@
+package com.emerbv.ecommdb.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum CartOperationType {
+    ADD,
+    UPDATE,
+    REMOVE;
+
+    @JsonCreator
+    public static CartOperationType fromString(String value) {
+        if (value == null) {
+            return null;
+        }
+
+        for (CartOperationType type : CartOperationType.values()) {
+            if (type.name().equalsIgnoreCase(value)) {
+                return type;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown cart operation: " + value);
+    }
+
+    @JsonValue
+    public String getValue() {
+        return this.name();
+    }
+}
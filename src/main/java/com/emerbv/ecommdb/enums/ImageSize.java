@@ -0,0 +1,33 @@
+package com.emerbv.ecommdb.enums;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Renditions generated for every product image, by maximum width in pixels
+ */
+public enum ImageSize {
+    THUMBNAIL(160),
+    SMALL(320),
+    MEDIUM(640),
+    LARGE(1280);
+
+    private final int width;
+
+    ImageSize(int width) {
+        this.width = width;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public static Optional<ImageSize> from(String value) {
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+        return Arrays.stream(values())
+                .filter(size -> size.name().equalsIgnoreCase(value.trim()))
+                .findFirst();
+    }
+}
@@ -0,0 +1,109 @@
+package com.emerbv.ecommdb.mapper;
+
+import com.emerbv.ecommdb.dto.CartDto;
+import com.emerbv.ecommdb.dto.CartItemDto;
+import com.emerbv.ecommdb.dto.ImageDto;
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.model.Cart;
+import com.emerbv.ecommdb.model.CartItem;
+import com.emerbv.ecommdb.model.Image;
+import com.emerbv.ecommdb.repository.CartRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Component
+public class CartMapper {
+
+    /**
+     * @param productDtos already converted products of the cart, keyed by product id
+     */
+    public CartDto toDto(Cart cart, Map<Long, ProductDto> productDtos) {
+        CartDto cartDto = new CartDto();
+        cartDto.setCartId(cart.getId());
+        cartDto.setTotalAmount(cart.getTotalAmount());
+        if (cart.getItems() != null) {
+            cartDto.setItems(cart.getItems().stream()
+                    .map(item -> toItemDto(item, productDtos))
+                    .collect(Collectors.toSet()));
+        }
+        return cartDto;
+    }
+
+    /**
+     * DTOs de carrito a partir de las filas de la vista de solo lectura, por id de carrito y en el orden de la consulta.
+     * El producto solo lleva el resumen que lee la vista y su primera imagen
+     */
+    public Map<Long, CartDto> toDtos(List<CartRepository.CartLineView> lines) {
+        Map<Long, CartDto> carts = new LinkedHashMap<>();
+        for (CartRepository.CartLineView line : lines) {
+            CartDto cartDto = carts.computeIfAbsent(line.getCartId(), cartId -> {
+                CartDto dto = new CartDto();
+                dto.setCartId(cartId);
+                dto.setTotalAmount(line.getCartTotal());
+                dto.setItems(new LinkedHashSet<>());
+                return dto;
+            });
+            if (line.getItemId() != null) {
+                cartDto.getItems().add(toItemDto(line));
+            }
+        }
+        return carts;
+    }
+
+    private CartItemDto toItemDto(CartRepository.CartLineView line) {
+        CartItemDto cartItemDto = new CartItemDto();
+        cartItemDto.setItemId(line.getItemId());
+        cartItemDto.setQuantity(line.getQuantity());
+        cartItemDto.setUnitPrice(line.getUnitPrice());
+        cartItemDto.setTotalPrice(line.getTotalPrice());
+        cartItemDto.setVariantId(line.getVariantId());
+        cartItemDto.setVariantName(line.getVariantName());
+
+        List<ImageDto> images = List.of();
+        if (line.getImageId() != null) {
+            ImageDto imageDto = new ImageDto();
+            imageDto.setId(line.getImageId());
+            imageDto.setFileName(line.getImageFileName());
+            imageDto.setDownloadUrl(Image.downloadUrl(line.getImageId(), line.getImageStorageKey()));
+            images = List.of(imageDto);
+        }
+        cartItemDto.setImages(images);
+
+        if (line.getProductId() != null) {
+            ProductDto productDto = new ProductDto();
+            productDto.setId(line.getProductId());
+            productDto.setName(line.getProductName());
+            productDto.setBrand(line.getProductBrand());
+            productDto.setPrice(line.getProductPrice());
+            productDto.setInventory(line.getProductInventory() != null ? line.getProductInventory() : 0);
+            productDto.setStatus(line.getProductStatus());
+            productDto.setImages(images);
+            cartItemDto.setProduct(productDto);
+        }
+        return cartItemDto;
+    }
+
+    public CartItemDto toItemDto(CartItem cartItem, Map<Long, ProductDto> productDtos) {
+        CartItemDto cartItemDto = new CartItemDto();
+        cartItemDto.setItemId(cartItem.getId());
+        cartItemDto.setQuantity(cartItem.getQuantity());
+        cartItemDto.setUnitPrice(cartItem.getUnitPrice());
+        cartItemDto.setTotalPrice(cartItem.getTotalPrice());
+        cartItemDto.setVariantId(cartItem.getVariantId());
+        cartItemDto.setVariantName(cartItem.getVariantName());
+
+        // Si el producto existe, asignar el producto y sus imágenes
+        if (cartItem.getProduct() != null) {
+            ProductDto productDto = productDtos.get(cartItem.getProduct().getId());
+            cartItemDto.setProduct(productDto);
+            cartItemDto.setImages(productDto != null ? productDto.getImages() : List.of());
+        }
+
+        return cartItemDto;
+    }
+}
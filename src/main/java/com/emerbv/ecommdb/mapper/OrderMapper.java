@@ -0,0 +1,63 @@
+package com.emerbv.ecommdb.mapper;
+
+import com.emerbv.ecommdb.dto.OrderDto;
+import com.emerbv.ecommdb.dto.OrderItemDto;
+import com.emerbv.ecommdb.model.Order;
+import com.emerbv.ecommdb.model.OrderItem;
+import com.emerbv.ecommdb.model.ShippingDetails;
+import org.springframework.stereotype.Component;
+
+@Component
+public class OrderMapper {
+
+    public OrderDto toDto(Order order) {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setOrderId(order.getOrderId());
+        orderDto.setUserId(order.getUser() != null ? order.getUser().getId() : null);
+        orderDto.setOrderDate(order.getOrderDate());
+        orderDto.setTotalAmount(order.getTotalAmount());
+        orderDto.setStatus(order.getOrderStatus());
+
+        // Conversión de OrderItems incluyendo la información de variantes
+        if (order.getOrderItems() != null) {
+            orderDto.setItems(order.getOrderItems().stream().map(this::toItemDto).toList());
+        }
+
+        // Incluir información de la dirección de envío en el DTO
+        ShippingDetails shippingDetails = order.getShippingDetails();
+        if (shippingDetails != null) {
+            orderDto.setShippingDetailsId(shippingDetails.getId());
+            orderDto.setShippingAddress(shippingDetails.getAddress());
+            orderDto.setShippingCity(shippingDetails.getCity());
+            orderDto.setShippingState(shippingDetails.getState());
+            orderDto.setShippingPostalCode(shippingDetails.getPostalCode());
+            orderDto.setShippingCountry(shippingDetails.getCountry());
+            orderDto.setShippingPhoneNumber(shippingDetails.getPhoneNumber());
+            orderDto.setShippingFullName(shippingDetails.getFullName());
+        }
+
+        // Añadir información de pago al DTO
+        orderDto.setPaymentMethod(order.getPaymentMethod());
+        orderDto.setPaymentIntentId(order.getPaymentIntentId());
+
+        return orderDto;
+    }
+
+    public OrderItemDto toItemDto(OrderItem item) {
+        OrderItemDto itemDto = new OrderItemDto();
+        itemDto.setProductId(item.getProduct() != null ? item.getProduct().getId() : null);
+        itemDto.setProductName(item.getProduct() != null ? item.getProduct().getName() : "Producto no disponible");
+        itemDto.setProductBrand(item.getProduct() != null ? item.getProduct().getBrand() : "");
+        itemDto.setQuantity(item.getQuantity());
+        itemDto.setPrice(item.getPrice());
+        itemDto.setTotalPrice(item.getTotalPrice());
+
+        // Agregar información de la variante si existe
+        if (item.getVariantId() != null) {
+            itemDto.setVariantId(item.getVariantId());
+            itemDto.setVariantName(item.getVariantName());
+        }
+
+        return itemDto;
+    }
+}
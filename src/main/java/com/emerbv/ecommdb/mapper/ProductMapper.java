@@ -0,0 +1,82 @@
+package com.emerbv.ecommdb.mapper;
+
+import com.emerbv.ecommdb.dto.ImageDto;
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.dto.VariantDto;
+import com.emerbv.ecommdb.model.Category;
+import com.emerbv.ecommdb.model.Image;
+import com.emerbv.ecommdb.model.Product;
+import com.emerbv.ecommdb.model.Variant;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Hand-written Product/Variant/Image to DTO mapping.
+ * Replaces the reflective ModelMapper type maps on the listing hot paths with plain field copies
+ * producing the same JSON output.
+ */
+@Component
+public class ProductMapper {
+
+    public ProductDto toDto(Product product, List<Variant> variants, List<Image> images) {
+        ProductDto productDto = new ProductDto();
+        productDto.setId(product.getId());
+        productDto.setName(product.getName());
+        productDto.setBrand(product.getBrand());
+        productDto.setPrice(product.getPrice());
+        productDto.setInventory(product.getInventory());
+        productDto.setDescription(product.getDescription());
+        productDto.setCategory(toCategoryView(product.getCategory()));
+        productDto.setDiscountPercentage(product.getDiscountPercentage());
+        productDto.setStatus(product.getStatus());
+        productDto.setSalesCount(product.getSalesCount());
+        productDto.setWishCount(product.getWishCount());
+        productDto.setPreOrder(product.isPreOrder());
+        productDto.setCreatedAt(product.getCreatedAt());
+        productDto.setVersion(product.getVersion());
+        productDto.setLastModifiedAt(product.getLastModifiedAt());
+        productDto.setVariants(variants.stream()
+                .sorted(Comparator.comparing(Variant::getId))
+                .map(this::toVariantDto)
+                .toList());
+        productDto.setImages(images.stream()
+                .sorted(Comparator.comparing(Image::getId))
+                .map(this::toImageDto)
+                .toList());
+        return productDto;
+    }
+
+    public VariantDto toVariantDto(Variant variant) {
+        VariantDto variantDto = new VariantDto();
+        variantDto.setId(variant.getId());
+        variantDto.setName(variant.getName());
+        variantDto.setPrice(variant.getPrice());
+        variantDto.setInventory(variant.getInventory());
+        return variantDto;
+    }
+
+    public ImageDto toImageDto(Image image) {
+        ImageDto imageDto = new ImageDto();
+        imageDto.setId(image.getId());
+        imageDto.setFileName(image.getFileName());
+        imageDto.setDownloadUrl(image.getDownloadUrl());
+        return imageDto;
+    }
+
+    /**
+     * Detached copy with the serialized fields only, so DTOs never hold the image blob or the lazy products
+     */
+    public Category toCategoryView(Category category) {
+        if (category == null) {
+            return null;
+        }
+        Category copy = new Category(category.getName());
+        copy.setId(category.getId());
+        copy.setImageFileName(category.getImageFileName());
+        copy.setImageFileType(category.getImageFileType());
+        copy.setImageDownloadUrl(category.getImageDownloadUrl());
+        return copy;
+    }
+}
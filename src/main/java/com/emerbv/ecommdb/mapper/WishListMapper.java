@@ -0,0 +1,27 @@
+package com.emerbv.ecommdb.mapper;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.dto.WishListDto;
+import com.emerbv.ecommdb.model.WishList;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+
+@Component
+public class WishListMapper {
+
+    public WishListDto toDto(WishList wishList, List<ProductDto> productDtos) {
+        WishListDto wishListDto = new WishListDto();
+        wishListDto.setId(wishList.getId());
+        wishListDto.setCreatedAt(wishList.getCreatedAt());
+        wishListDto.setUpdatedAt(wishList.getUpdatedAt());
+
+        if (wishList.getUser() != null) {
+            wishListDto.setUserId(wishList.getUser().getId());
+        }
+
+        wishListDto.setProducts(new HashSet<>(productDtos));
+        return wishListDto;
+    }
+}
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -15,12 +16,24 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
+@Table(name = "cart", indexes = @Index(name = "idx_cart_last_activity_id", columnList = "last_activity_at, id"))
 public class Cart {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private BigDecimal totalAmount = BigDecimal.ZERO;
 
+    // Último cambio de las líneas, para detectar carritos abandonados; las lecturas no lo modifican
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+
+    // Recordatorios de carrito abandonado enviados desde el último cambio; cualquier actividad los reinicia
+    @Column(name = "abandoned_reminders", nullable = false, columnDefinition = "int not null default 0")
+    private int abandonedReminders;
+
+    @Column(name = "last_reminded_at")
+    private LocalDateTime lastRemindedAt;
+
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<CartItem> items = new HashSet<>();
 
@@ -28,6 +41,19 @@ public class Cart {
     @JoinColumn(name = "user_id")
     private User user;
 
+    @PrePersist
+    protected void onCreate() {
+        if (lastActivityAt == null) {
+            lastActivityAt = LocalDateTime.now();
+        }
+    }
+
+    public void touch() {
+        this.lastActivityAt = LocalDateTime.now();
+        this.abandonedReminders = 0;
+        this.lastRemindedAt = null;
+    }
+
     public void addItem(CartItem item) {
         this.items.add(item);
         item.setCart(this);
@@ -24,11 +24,17 @@ public class Category {
     private String imageFileName;
     private String imageFileType;
 
+    // Legacy column, emptied by ImageBlobMigrationService once the bytes are in the image storage
     @Lob
     @JsonIgnore
     private Blob image;
     private String imageDownloadUrl;
 
+    @JsonIgnore
+    @Column(length = 64)
+    private String imageStorageKey;
+    private Long imageSize;
+
     @JsonIgnore
     @OneToMany(mappedBy = "category")
     private List<Product> products;
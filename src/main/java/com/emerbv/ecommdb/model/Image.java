@@ -6,7 +6,13 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import com.emerbv.ecommdb.enums.ImageSize;
+import com.emerbv.ecommdb.service.storage.ImageStorage;
+
 import java.sql.Blob;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 @Getter
 @Setter
@@ -14,17 +20,49 @@ import java.sql.Blob;
 @NoArgsConstructor
 @Entity
 public class Image {
+    public static final String DOWNLOAD_PATH = "/api/v1/images/image/download/";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String fileName;
     private String fileType;
 
+    // Legacy column, emptied by ImageBlobMigrationService once the bytes are in the image storage
     @Lob
     private Blob image;
-    private String downloadUrl;
+
+    // SHA-256 of the content, key in the image storage
+    @Column(length = 64)
+    private String storageKey;
+    private Long fileSize;
+
+    // Resized copies, generated in the background by ImageRenditionService
+    @ElementCollection
+    @CollectionTable(name = "image_rendition", joinColumns = @JoinColumn(name = "image_id"))
+    private List<ImageRendition> renditions = new ArrayList<>();
 
     @ManyToOne
     @JoinColumn(name = "product_id")
     private Product product;
+
+    // Derived from the id, so a new image is inserted once instead of saved again to patch the URL.
+    // The content version makes the URL change with the content, so it can be cached as immutable
+    public String getDownloadUrl() {
+        return downloadUrl(id, storageKey);
+    }
+
+    // Also used by projections that read the id and key without loading the image
+    public static String downloadUrl(Long id, String storageKey) {
+        if (id == null) {
+            return null;
+        }
+        return storageKey != null ? DOWNLOAD_PATH + id + "?v=" + ImageStorage.version(storageKey) : DOWNLOAD_PATH + id;
+    }
+
+    public Optional<ImageRendition> getRendition(ImageSize size) {
+        return renditions.stream()
+                .filter(rendition -> rendition.getSize() == size)
+                .findFirst();
+    }
 }
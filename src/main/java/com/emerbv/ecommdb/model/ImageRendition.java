@@ -0,0 +1,30 @@
+package com.emerbv.ecommdb.model;
+
+import com.emerbv.ecommdb.enums.ImageSize;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Embeddable
+public class ImageRendition {
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private ImageSize size;
+    private int width;
+    private int height;
+
+    // Originals narrower than the size are not upscaled, the rendition points to the original content
+    @Column(length = 64)
+    private String storageKey;
+    private long fileSize;
+    private String fileType;
+}
@@ -16,6 +16,15 @@ import java.util.List;
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Entity
+// (sort column, id) pairs backing the keyset scroll, one per sort order of the product filter
+@Table(indexes = {
+        @Index(name = "idx_product_price_id", columnList = "price, id"),
+        @Index(name = "idx_product_name_id", columnList = "name, id"),
+        @Index(name = "idx_product_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_product_sales_count_id", columnList = "sales_count, id"),
+        @Index(name = "idx_product_wish_count_id", columnList = "wish_count, id"),
+        @Index(name = "idx_product_discount_percentage_id", columnList = "discount_percentage, id")
+})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -48,56 +57,43 @@ public class Product {
 
     private LocalDateTime lastStockUpdate;
 
+    // Bumped on every change visible in the product detail, used for ETags and conditional GETs
+    @Column(nullable = false, columnDefinition = "bigint not null default 0")
+    private long version;
+
+    private LocalDateTime lastModifiedAt;
+
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Variant> variants;
 
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Image> images;
 
-    public BigDecimal getEffectivePrice() {
-        if (variants != null && !variants.isEmpty()) {
-            return  variants.stream()
-                    .map(Variant::getPrice)
-                    .min(BigDecimal::compareTo)
-                    .orElse(price);
-        }
-        return price;
-    }
-
-    public int getTotalInventory() {
-        if (variants != null && !variants.isEmpty()) {
-            return variants.stream()
-                    .mapToInt(Variant::getInventory)
-                    .sum();
+    /**
+     * Copies the aggregates of the variant rows (lowest price, total stock) into the denormalized
+     * price and inventory, so product reads and status checks never load the variants collection.
+     * A product left without variants keeps its price and has no stock.
+     */
+    public void applyVariantTotals(BigDecimal minPrice, int totalInventory) {
+        if (minPrice != null) {
+            this.price = minPrice;
         }
-
-        return  0;
+        this.inventory = totalInventory;
+        updateProductStatus();
     }
 
-    public void updateProductDetails() {
-        this.price = getEffectivePrice(); // Obtener el precio más bajo de las variantes
-        this.inventory = getTotalInventory(); // Sumar el inventario de todas las variantes
+    public ProductStatus getProductStatus() {
+        return updateProductStatus();
     }
 
-    public ProductStatus getProductStatus() {
-        // Actualizar inventario primero desde variantes, si existen
-        updateProductDetails();
-
-        // Determinar el estado basado en el inventario total
-        if (this.getTotalInventory() <= 0) {
-            this.status = ProductStatus.OUT_OF_STOCK;
-        } else {
-            this.status = ProductStatus.IN_STOCK;
-        }
-        return this.status;
+    public void markModified() {
+        this.version++;
+        this.lastModifiedAt = LocalDateTime.now();
     }
 
     public ProductStatus updateProductStatus() {
-        // Primero actualizar los detalles del producto para tener el inventario total actualizado
-        updateProductDetails();
-
-        // Determinar el estado basado en el inventario total
-        ProductStatus newStatus = getTotalInventory() > 0 ? ProductStatus.IN_STOCK : ProductStatus.OUT_OF_STOCK;
+        // El inventario ya incluye el de las variantes (ver applyVariantTotals)
+        ProductStatus newStatus = inventory > 0 ? ProductStatus.IN_STOCK : ProductStatus.OUT_OF_STOCK;
         this.status = newStatus;
         return newStatus;
     }
@@ -0,0 +1,32 @@
+package com.emerbv.ecommdb.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reference count of one object in the image storage: how many images, renditions and
+ * category images point to it. The object is deleted when the count drops to zero.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "stored_content")
+public class StoredContent {
+
+    @Id
+    @Column(length = 64)
+    private String storageKey;
+
+    private Long fileSize;
+
+    @Column(nullable = false)
+    private int refCount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -2,10 +2,42 @@ package com.emerbv.ecommdb.repository;
 
 import com.emerbv.ecommdb.model.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     void deleteAllByCartId(Long id);
     List<CartItem> findByProductId(Long productId);
+
+    // ProductService: set-based removal of the lines of deleted products
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.product.id IN :productIds")
+    int deleteByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    // CartItemService: add-to-cart upsert, the existing line grows or a new one is inserted.
+    // total_price is assigned first, MySQL evaluates the SET list left to right
+    @Modifying(clearAutomatically = true)
+    @Query(value = "UPDATE cart_item SET total_price = COALESCE(unit_price, 0) * (quantity + :quantity), " +
+            "quantity = quantity + :quantity " +
+            "WHERE cart_id = :cartId AND product_id = :productId AND variant_id <=> :variantId", nativeQuery = true)
+    int incrementLine(@Param("cartId") Long cartId,
+                      @Param("productId") Long productId,
+                      @Param("variantId") Long variantId,
+                      @Param("quantity") int quantity);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "INSERT INTO cart_item (cart_id, product_id, variant_id, variant_name, quantity, unit_price, total_price) " +
+            "VALUES (:cartId, :productId, :variantId, :variantName, :quantity, :unitPrice, COALESCE(:unitPrice, 0) * :quantity)",
+            nativeQuery = true)
+    int insertLine(@Param("cartId") Long cartId,
+                   @Param("productId") Long productId,
+                   @Param("variantId") Long variantId,
+                   @Param("variantName") String variantName,
+                   @Param("quantity") int quantity,
+                   @Param("unitPrice") BigDecimal unitPrice);
 }
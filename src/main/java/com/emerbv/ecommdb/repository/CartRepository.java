@@ -1,8 +1,135 @@
 package com.emerbv.ecommdb.repository;
 
+import com.emerbv.ecommdb.enums.ProductStatus;
 import com.emerbv.ecommdb.model.Cart;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Cart findByUserId(Long userId);
+
+    @EntityGraph(attributePaths = {"items"})
+    Optional<Cart> findWithItemsById(Long id);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(c.totalAmount, 0) FROM Cart c WHERE c.id = :id")
+    Optional<BigDecimal> findTotalAmountById(@Param("id") Long id);
+
+    // Read-only cart view: cart, lines, product summary and first image in one query, one row per line
+    // (a single row with null line columns for an empty cart)
+    String CART_LINES = "SELECT c.id AS cartId, c.totalAmount AS cartTotal, ci.id AS itemId, ci.quantity AS quantity, " +
+            "ci.unitPrice AS unitPrice, ci.totalPrice AS totalPrice, ci.variantId AS variantId, ci.variantName AS variantName, " +
+            "p.id AS productId, p.name AS productName, p.brand AS productBrand, p.price AS productPrice, " +
+            "p.inventory AS productInventory, p.status AS productStatus, " +
+            "i.id AS imageId, i.fileName AS imageFileName, i.storageKey AS imageStorageKey " +
+            "FROM Cart c LEFT JOIN c.items ci LEFT JOIN ci.product p " +
+            "LEFT JOIN Image i ON i.product = p AND i.id = (SELECT MIN(i2.id) FROM Image i2 WHERE i2.product = p) ";
+
+    @Query(CART_LINES + "WHERE c.id = :cartId ORDER BY ci.id")
+    List<CartLineView> findLinesByCartId(@Param("cartId") Long cartId);
+
+    @Query(CART_LINES + "WHERE c.user.id = :userId ORDER BY ci.id")
+    List<CartLineView> findLinesByUserId(@Param("userId") Long userId);
+
+    @Query(CART_LINES + "WHERE c.id IN :cartIds ORDER BY c.id, ci.id")
+    List<CartLineView> findLinesByCartIdIn(@Param("cartIds") Collection<Long> cartIds);
+
+    interface CartLineView {
+        Long getCartId();
+        BigDecimal getCartTotal();
+        Long getItemId();
+        Integer getQuantity();
+        BigDecimal getUnitPrice();
+        BigDecimal getTotalPrice();
+        Long getVariantId();
+        String getVariantName();
+        Long getProductId();
+        String getProductName();
+        String getProductBrand();
+        BigDecimal getProductPrice();
+        Integer getProductInventory();
+        ProductStatus getProductStatus();
+        Long getImageId();
+        String getImageFileName();
+        String getImageStorageKey();
+    }
+
+    // ProductService: totals of the carts holding deleted products, recomputed without those lines
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Cart c SET c.totalAmount = (" +
+            "SELECT COALESCE(SUM(COALESCE(ci.totalPrice, ci.unitPrice * ci.quantity)), 0) FROM CartItem ci " +
+            "WHERE ci.cart = c AND (ci.product IS NULL OR ci.product.id NOT IN :productIds)) " +
+            "WHERE c.id IN (SELECT ci2.cart.id FROM CartItem ci2 WHERE ci2.product.id IN :productIds)")
+    int updateTotalsExcludingProducts(@Param("productIds") Collection<Long> productIds);
+
+    // CartItemService: incremental total of an add, priced like the existing line or the new one.
+    // Being the first write, it also locks the cart row so concurrent adds to the same cart queue up
+    @Modifying
+    @Query(value = "UPDATE cart c SET c.total_amount = COALESCE(c.total_amount, 0) + :quantity * COALESCE(" +
+            "(SELECT ci.unit_price FROM cart_item ci WHERE ci.cart_id = c.id AND ci.product_id = :productId " +
+            "AND ci.variant_id <=> :variantId LIMIT 1), :unitPrice, 0), c.last_activity_at = :now, " +
+            "c.abandoned_reminders = 0, c.last_reminded_at = NULL " +
+            "WHERE c.id = :cartId", nativeQuery = true)
+    int addToTotal(@Param("cartId") Long cartId,
+                   @Param("productId") Long productId,
+                   @Param("variantId") Long variantId,
+                   @Param("quantity") int quantity,
+                   @Param("unitPrice") BigDecimal unitPrice,
+                   @Param("now") LocalDateTime now);
+
+    // Abandoned-cart jobs: non-empty carts whose last activity falls in [from, to), still under maxAttempts
+    // reminders and not reminded since remindedBefore. Pages follow (lastActivityAt, id) from the cursor, start
+    // with (from, 0), so the range and the order are both resolved on idx_cart_last_activity_id
+    @Query("SELECT c.id AS cartId, c.user.id AS userId, c.lastActivityAt AS lastActivityAt FROM Cart c " +
+            "WHERE c.lastActivityAt >= :afterActivity AND c.lastActivityAt < :to " +
+            "AND (c.lastActivityAt > :afterActivity OR c.id > :afterId) " +
+            "AND c.abandonedReminders < :maxAttempts " +
+            "AND (c.lastRemindedAt IS NULL OR c.lastRemindedAt < :remindedBefore) " +
+            "AND COALESCE(c.totalAmount, 0) >= :minTotal " +
+            "AND EXISTS (SELECT 1 FROM CartItem ci WHERE ci.cart = c) " +
+            "AND (:remindersOnly = false OR EXISTS (SELECT 1 FROM NotificationPreference np " +
+            "WHERE np.userId = c.user.id AND np.cartReminders = true AND np.notificationsEnabled = true)) " +
+            "ORDER BY c.lastActivityAt, c.id")
+    List<AbandonedCartView> findAbandonedCarts(@Param("afterActivity") LocalDateTime afterActivity,
+                                               @Param("afterId") Long afterId,
+                                               @Param("to") LocalDateTime to,
+                                               @Param("maxAttempts") int maxAttempts,
+                                               @Param("remindedBefore") LocalDateTime remindedBefore,
+                                               @Param("minTotal") BigDecimal minTotal,
+                                               @Param("remindersOnly") boolean remindersOnly,
+                                               Limit limit);
+
+    // Both jobs run inside a read-only transaction; each page is recorded in its own so the cart rows
+    // are not kept locked while the rest of the job sends its emails
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE Cart c SET c.abandonedReminders = c.abandonedReminders + 1, c.lastRemindedAt = :now " +
+            "WHERE c.id IN :ids")
+    int markReminded(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Carts created before activity was tracked would never match the window, they start counting from now
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE cart SET last_activity_at = NOW() WHERE last_activity_at IS NULL", nativeQuery = true)
+    int backfillLastActivity();
+
+    interface AbandonedCartView {
+        Long getCartId();
+        Long getUserId();
+        LocalDateTime getLastActivityAt();
+    }
 }
@@ -2,8 +2,19 @@ package com.emerbv.ecommdb.repository;
 
 import com.emerbv.ecommdb.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     Category findByName(String name);
     boolean existsByName(String name);
+
+    // Id and name only, without loading the image blobs
+    @Query("SELECT c.id, c.name FROM Category c")
+    List<Object[]> findAllIdAndName();
+
+    // ImageBlobMigrationService: categories whose image is still in the legacy blob column
+    @Query("SELECT c.id FROM Category c WHERE c.imageStorageKey IS NULL AND c.image IS NOT NULL")
+    List<Long> findIdsWithLegacyImage();
 }
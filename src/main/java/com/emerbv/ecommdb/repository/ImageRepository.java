@@ -1,10 +1,43 @@
 package com.emerbv.ecommdb.repository;
 
 import com.emerbv.ecommdb.model.Image;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ImageRepository extends JpaRepository<Image, Long> {
     List<Image> findByProductId(Long id);
+    List<Image> findByProductIdIn(Collection<Long> productIds);
+
+    @EntityGraph(attributePaths = {"renditions"})
+    Optional<Image> findWithRenditionsById(Long id);
+
+    // ProductService: stored content referenced by the images of deleted products, released after the delete
+    @Query("SELECT i.storageKey FROM Image i WHERE i.product.id IN :productIds AND i.storageKey IS NOT NULL")
+    List<String> findStorageKeysByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Query(value = "SELECT r.storage_key FROM image_rendition r JOIN image i ON i.id = r.image_id " +
+            "WHERE i.product_id IN (:productIds)", nativeQuery = true)
+    List<String> findRenditionKeysByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    // ImageBlobMigrationService: rows whose bytes are still in the legacy blob column
+    @Query("SELECT i.id FROM Image i WHERE i.storageKey IS NULL AND i.image IS NOT NULL AND i.id > :afterId ORDER BY i.id")
+    List<Long> findIdsWithLegacyBlob(@Param("afterId") Long afterId, Limit limit);
+
+    // ProductService: set-based removal of the images of deleted products, renditions first
+    @Modifying
+    @Query(value = "DELETE FROM image_rendition WHERE image_id IN " +
+            "(SELECT id FROM image WHERE product_id IN (:productIds))", nativeQuery = true)
+    int deleteRenditionsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying
+    @Query("DELETE FROM Image i WHERE i.product.id IN :productIds")
+    int deleteByProductIdIn(@Param("productIds") Collection<Long> productIds);
 }
@@ -2,9 +2,24 @@ package com.emerbv.ecommdb.repository;
 
 import com.emerbv.ecommdb.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByProductId(Long id);
+
+    // ProductService: orders are historical records, their items only lose the product reference
+    @Modifying
+    @Query("UPDATE OrderItem oi SET oi.product = NULL WHERE oi.product.id IN :productIds")
+    int detachProducts(@Param("productIds") Collection<Long> productIds);
+
+    // ProductRankingService: product id, quantity and order date of the recent sales
+    @Query("SELECT oi.product.id, oi.quantity, o.orderDate FROM OrderItem oi JOIN oi.order o " +
+            "WHERE o.orderDate >= :since AND oi.product IS NOT NULL")
+    List<Object[]> findSalesSince(@Param("since") LocalDateTime since);
 }
@@ -2,24 +2,37 @@ package com.emerbv.ecommdb.repository;
 
 import com.emerbv.ecommdb.enums.ProductStatus;
 import com.emerbv.ecommdb.model.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
     // ProductService
     @EntityGraph(attributePaths = {"category", "images"})
     List<Product> findAll();
 
+    @EntityGraph(attributePaths = {"category", "images"})
+    Optional<Product> findWithImagesById(Long id);
+
+    // ProductExportService: keyset chunks, images and variants are loaded per chunk
+    @EntityGraph(attributePaths = {"category"})
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
     @EntityGraph(attributePaths = {"category", "images"})
     List<Product> findByCategoryName(String category);
 
@@ -29,9 +42,6 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @EntityGraph(attributePaths = {"category", "images"})
     List<Product> findByCategoryNameAndBrand(String category, String brand);
 
-    @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :name, '%'))")
-    List<Product> findByName(@Param("name") String name);
-
     @EntityGraph(attributePaths = {"category", "images"})
     List<Product> findByBrandAndName(String brand, String name);
 
@@ -39,14 +49,35 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     boolean existsByNameAndBrand(String name, String brand);
 
-    @EntityGraph(attributePaths = {"category", "images"})
-    List<Product> findByStatus(ProductStatus status);
+    // ProductImportService: in-memory duplicate check
+    @Query("SELECT p.name, p.brand FROM Product p")
+    List<Object[]> findAllNameAndBrand();
 
-    @EntityGraph(attributePaths = {"category", "images"})
-    List<Product> findTop10ByOrderBySalesCountDesc();
+    // ProductService: set-based deletion, references are removed beforehand
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Product p WHERE p.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // New version of the product detail (ETags) without loading the product: a save of a detached copy would
+    // overwrite the stock and counters written since it was read. Flushes first so a pending save of the
+    // same product in the current transaction cannot write its old version back afterwards
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Product p SET p.version = p.version + 1, p.lastModifiedAt = :now WHERE p.id = :id")
+    int markModified(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // CartItemService: unit price of a new cart line, without loading the product
+    @Query("SELECT p.price FROM Product p WHERE p.id = :id")
+    Optional<BigDecimal> findPriceById(@Param("id") Long id);
+
+    @Query("SELECT p.id, p.price FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findIdAndPriceByIdIn(@Param("ids") Collection<Long> ids);
 
     @EntityGraph(attributePaths = {"category", "images"})
-    List<Product> findTop10ByOrderByWishCountDesc();
+    List<Product> findByStatus(ProductStatus status);
 
     @EntityGraph(attributePaths = {"category", "images"})
     List<Product> findByCreatedAtAfter(LocalDateTime date);
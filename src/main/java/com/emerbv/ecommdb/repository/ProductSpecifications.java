@@ -0,0 +1,75 @@
+package com.emerbv.ecommdb.repository;
+
+import com.emerbv.ecommdb.dto.ProductFilterDto;
+import com.emerbv.ecommdb.model.Product;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Criteria equivalent of {@link ProductRepository#findProductsWithFilters}, used by the keyset scrolling queries.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> matching(ProductFilterDto filterDto) {
+        return (root, query, cb) -> {
+            var predicate = cb.conjunction();
+            if (filterDto.getAvailability() != null) {
+                predicate = cb.and(predicate, cb.equal(root.get("status"), filterDto.getAvailability()));
+            }
+            if (filterDto.getCategory() != null) {
+                predicate = cb.and(predicate, cb.equal(root.get("category").get("name"), filterDto.getCategory()));
+            }
+            if (filterDto.getBrand() != null) {
+                predicate = cb.and(predicate, cb.equal(root.get("brand"), filterDto.getBrand()));
+            }
+            if (filterDto.getMinPrice() != null) {
+                predicate = cb.and(predicate, cb.greaterThanOrEqualTo(root.get("price"), filterDto.getMinPrice()));
+            }
+            if (filterDto.getMaxPrice() != null) {
+                predicate = cb.and(predicate, cb.lessThanOrEqualTo(root.get("price"), filterDto.getMaxPrice()));
+            }
+            return predicate;
+        };
+    }
+
+    /**
+     * Seeks past the given position of a {@code (sortField, id)} ordering.
+     * Follows the nulls-lowest ordering of MySQL (and H2): products without a value for the sort field
+     * come first when ascending and last when descending, ordered by id among themselves.
+     */
+    public static Specification<Product> after(String sortField, Sort.Direction direction, KeysetScrollPosition position) {
+        return (root, query, cb) -> {
+            if (position.isInitial()) {
+                return cb.conjunction();
+            }
+            Path<Comparable<Object>> field = root.get(sortField);
+            Path<Long> id = root.get("id");
+            Long lastId = (Long) position.getKeys().get("id");
+            @SuppressWarnings("unchecked")
+            Comparable<Object> lastValue = (Comparable<Object>) position.getKeys().get(sortField);
+            boolean ascending = direction.isAscending();
+
+            if (lastValue == null) {
+                Predicate sameNullGroup = cb.and(cb.isNull(field), beyond(cb, id, lastId, ascending));
+                return ascending ? cb.or(sameNullGroup, cb.isNotNull(field)) : sameNullGroup;
+            }
+            Predicate pastValue = cb.or(
+                    beyond(cb, field, lastValue, ascending),
+                    cb.and(cb.equal(field, lastValue), beyond(cb, id, lastId, ascending)));
+            return ascending ? pastValue : cb.or(pastValue, cb.isNull(field));
+        };
+    }
+
+    private static <T extends Comparable<? super T>> Predicate beyond(CriteriaBuilder cb, Expression<? extends T> path,
+                                                                      T value, boolean ascending) {
+        return ascending ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+    }
+}
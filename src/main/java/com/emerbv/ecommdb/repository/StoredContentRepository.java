@@ -0,0 +1,51 @@
+package com.emerbv.ecommdb.repository;
+
+import com.emerbv.ecommdb.model.StoredContent;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface StoredContentRepository extends JpaRepository<StoredContent, String> {
+
+    // Single statement, two uploads of the same new content cannot both insert the row
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO stored_content (storage_key, file_size, ref_count, created_at) " +
+            "VALUES (:key, :size, 1, NOW()) ON DUPLICATE KEY UPDATE ref_count = ref_count + 1", nativeQuery = true)
+    int acquire(@Param("key") String key, @Param("size") long size);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE StoredContent c SET c.refCount = c.refCount - 1 WHERE c.storageKey = :key AND c.refCount > 0")
+    int decrement(@Param("key") String key);
+
+    boolean existsByStorageKeyAndRefCountLessThanEqual(String storageKey, int refCount);
+
+    // SELECT ... FOR UPDATE: acquire() of the same key waits until the transaction holding the row ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM StoredContent c WHERE c.storageKey = :key")
+    Optional<StoredContent> findForUpdate(@Param("key") String key);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM StoredContent c WHERE c.storageKey = :key AND c.refCount <= 0")
+    int deleteIfUnreferenced(@Param("key") String key);
+
+    // Counts for content stored before reference counting existed, keys already tracked are left alone
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO stored_content (storage_key, file_size, ref_count, created_at) " +
+            "SELECT refs.storage_key, MAX(refs.file_size), COUNT(*), NOW() FROM (" +
+            "SELECT storage_key, file_size FROM image WHERE storage_key IS NOT NULL " +
+            "UNION ALL SELECT storage_key, file_size FROM image_rendition " +
+            "UNION ALL SELECT image_storage_key, image_size FROM category WHERE image_storage_key IS NOT NULL" +
+            ") refs WHERE NOT EXISTS (SELECT 1 FROM stored_content sc WHERE sc.storage_key = refs.storage_key) " +
+            "GROUP BY refs.storage_key", nativeQuery = true)
+    int backfillMissingReferences();
+}
@@ -3,9 +3,45 @@ package com.emerbv.ecommdb.repository;
 import com.emerbv.ecommdb.model.Image;
 import com.emerbv.ecommdb.model.Variant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface VariantRepository extends JpaRepository<Variant, Long> {
     List<Variant> findByProductId(Long id);
+    List<Variant> findByProductIdIn(Collection<Long> productIds);
+
+    // ProductService: aggregates denormalized into Product.price / inventory / status
+    @Query("SELECT MIN(v.price) AS minPrice, COALESCE(SUM(v.inventory), 0) AS totalInventory, COUNT(v) AS variantCount " +
+            "FROM Variant v WHERE v.product.id = :productId")
+    VariantTotals findTotalsByProductId(@Param("productId") Long productId);
+
+    // CartItemService: price and name of a new cart line, without loading the variant and its product
+    @Query("SELECT v.id AS id, v.price AS price, v.name AS name, v.product.id AS productId FROM Variant v WHERE v.id = :id")
+    Optional<VariantPricing> findPricingById(@Param("id") Long id);
+
+    @Query("SELECT v.id AS id, v.price AS price, v.name AS name, v.product.id AS productId FROM Variant v WHERE v.id IN :ids")
+    List<VariantPricing> findPricingByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM Variant v WHERE v.product.id IN :productIds")
+    int deleteByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    interface VariantTotals {
+        BigDecimal getMinPrice();
+        Long getTotalInventory();
+        Long getVariantCount();
+    }
+
+    interface VariantPricing {
+        Long getId();
+        BigDecimal getPrice();
+        String getName();
+        Long getProductId();
+    }
 }
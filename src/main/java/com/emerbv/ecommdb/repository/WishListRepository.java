@@ -2,10 +2,19 @@ package com.emerbv.ecommdb.repository;
 
 import com.emerbv.ecommdb.model.WishList;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Optional;
 
 public interface WishListRepository extends JpaRepository<WishList, Long> {
     Optional<WishList> findByUserId(Long userId);
     boolean existsByUserIdAndProductsId(Long userId, Long productId);
+
+    // ProductService: the join table has no entity, deleted products are unlinked with plain SQL
+    @Modifying
+    @Query(value = "DELETE FROM wishlist_products WHERE product_id IN (:productIds)", nativeQuery = true)
+    int deleteProductLinks(@Param("productIds") Collection<Long> productIds);
 }
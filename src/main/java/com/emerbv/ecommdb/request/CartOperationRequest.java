@@ -0,0 +1,14 @@
+package com.emerbv.ecommdb.request;
+
+import com.emerbv.ecommdb.enums.CartOperationType;
+import lombok.Data;
+
+@Data
+public class CartOperationRequest {
+    private CartOperationType type;
+    private Long productId;
+    // Optional: without it, UPDATE and REMOVE apply to the first line of the product
+    private Long variantId;
+    // Quantity to add (ADD) or the new quantity (UPDATE), ignored by REMOVE
+    private Integer quantity;
+}
@@ -0,0 +1,17 @@
+package com.emerbv.ecommdb.request;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One row of a bulk import, same shape as the entries of data/products.json.
+ * Read-only fields of that file (id, counters, images...) are ignored.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ProductImportRequest extends ProductRequest {
+    private List<VariantRequest> variants = new ArrayList<>();
+}
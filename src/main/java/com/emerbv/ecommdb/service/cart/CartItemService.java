@@ -1,28 +1,39 @@
 package com.emerbv.ecommdb.service.cart;
 
+import com.emerbv.ecommdb.enums.CartOperationType;
 import com.emerbv.ecommdb.exceptions.ResourceNotFoundException;
 import com.emerbv.ecommdb.model.Cart;
 import com.emerbv.ecommdb.model.CartItem;
-import com.emerbv.ecommdb.model.Product;
-import com.emerbv.ecommdb.model.Variant;
 import com.emerbv.ecommdb.repository.CartItemRepository;
 import com.emerbv.ecommdb.repository.CartRepository;
 import com.emerbv.ecommdb.repository.ProductRepository;
-import com.emerbv.ecommdb.service.product.IProductService;
-import com.emerbv.ecommdb.service.variant.IVariantService;
+import com.emerbv.ecommdb.repository.VariantRepository;
+import com.emerbv.ecommdb.request.CartOperationRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CartItemService implements ICartItemService {
+    private static final int MAX_OPERATIONS = 100;
+
     private final CartItemRepository cartItemRepository;
     private final CartRepository cartRepository;
     private final ProductRepository productRepository;
-    private final IProductService productService;
-    private final IVariantService variantService;
+    private final VariantRepository variantRepository;
+    // Present with app.cart.store=write-behind: mutations change the in-memory cart, written back in the background
+    private final Optional<CartWriteBehindStore> writeBehindStore;
 
     @Override
     public void addItemToCart(Long cartId, Long productId, int quantity) {
@@ -30,101 +41,66 @@ public class CartItemService implements ICartItemService {
     }
 
     @Override
+    @Transactional
     public void addItemToCartWithVariant(Long cartId, Long productId, Long variantId, int quantity) {
-        // 1. Get the cart
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
-
-        // 2. Get the product
-        Product product = productService.getProductById(productId);
-
-        // 3. Get the variant
-        Variant variant = variantService.getVariantById(variantId);
-
-        // 4. Validate variant belongs to product
-        if (!variant.getProduct().getId().equals(productId)) {
+        VariantRepository.VariantPricing variant = variantRepository.findPricingById(variantId)
+                .orElseThrow(() -> new ResourceNotFoundException("Variant not found with id: " + variantId));
+        if (!productId.equals(variant.getProductId())) {
             throw new ResourceNotFoundException("Variant does not belong to the specified product");
         }
-
-        // 5. Check if the product with this specific variant is already in the cart
-        CartItem cartItem = cart.getItems()
-                .stream()
-                .filter(item -> item.getProduct() != null &&
-                        item.getProduct().getId().equals(productId) &&
-                        item.getVariantId() != null &&
-                        item.getVariantId().equals(variantId))
-                .findFirst().orElse(new CartItem());
-
-        // 6. If not, create a new cart item
-        if (cartItem.getId() == null) {
-            cartItem.setCart(cart);
-            cartItem.setProduct(product);
-            cartItem.setVariantId(variant.getId());
-            cartItem.setVariantName(variant.getName());
-            cartItem.setQuantity(quantity);
-            cartItem.setUnitPrice(variant.getPrice());
-        } else {
-            // 7. If yes, update the quantity
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-        }
-
-        cartItem.setTotalPrice();
-        cart.addItem(cartItem);
-        cartItemRepository.save(cartItem);
-        cartRepository.save(cart);
-
-        product.updateProductStatus();
-        productRepository.save(product);
+        addLine(cartId, productId, variantId, variant.getName(), variant.getPrice(), quantity);
     }
 
     @Override
+    @Transactional
     public void addItemToCartWithoutVariant(Long cartId, Long productId, int quantity) {
-        // 1. Get the cart
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
-
-        // 2. Get the product
-        Product product = productService.getProductById(productId);
-
-        // 3. Check if the product (without variant) is already in the cart
-        CartItem cartItem = cart.getItems()
-                .stream()
-                .filter(item -> item.getProduct() != null &&
-                        item.getProduct().getId().equals(productId) &&
-                        item.getVariantId() == null)
-                .findFirst().orElse(new CartItem());
-
-        // 4. If not, create a new cart item
-        if (cartItem.getId() == null) {
-            cartItem.setCart(cart);
-            cartItem.setProduct(product);
-            cartItem.setQuantity(quantity);
-            cartItem.setUnitPrice(product.getPrice());
-        } else {
-            // 5. If yes, update the quantity
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-        }
-
-        cartItem.setTotalPrice();
-        cart.addItem(cartItem);
-        cartItemRepository.save(cartItem);
-        cartRepository.save(cart);
+        BigDecimal price = productRepository.findPriceById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found!"));
+        addLine(cartId, productId, null, null, price, quantity);
+    }
 
-        product.updateProductStatus();
-        productRepository.save(product);
+    /**
+     * Upsert of the (cart, product, variant) line plus an incremental cart total, in at most three statements
+     * whatever the size of the cart: neither the cart items nor the product row are loaded or written.
+     * An existing line keeps its unit price, as it did when the quantity was added in memory
+     */
+    private void addLine(Long cartId, Long productId, Long variantId, String variantName, BigDecimal unitPrice, int quantity) {
+        if (writeBehindStore.isPresent()) {
+            writeBehindStore.get().get(cartId).add(productId, variantId, variantName, unitPrice, quantity);
+            return;
+        }
+        if (cartRepository.addToTotal(cartId, productId, variantId, quantity, unitPrice, LocalDateTime.now()) == 0) {
+            throw new ResourceNotFoundException("Cart not found");
+        }
+        if (cartItemRepository.incrementLine(cartId, productId, variantId, quantity) == 0) {
+            cartItemRepository.insertLine(cartId, productId, variantId, variantName, quantity, unitPrice);
+        }
     }
 
     @Override
     public void removeItemFromCart(Long cartId, Long productId) {
+        if (writeBehindStore.isPresent()) {
+            if (!writeBehindStore.get().get(cartId).removeLine(productId, null)) {
+                throw new ResourceNotFoundException("Item not found");
+            }
+            return;
+        }
         Cart cart = cartRepository.findById(cartId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
         CartItem itemToRemove = getCartItem(cartId, productId);
         cart.removeItem(itemToRemove);
+        cart.touch();
         cartRepository.save(cart);
     }
 
     @Override
     public void updateItemQuantity(Long cartId, Long productId, int quantity) {
+        if (writeBehindStore.isPresent()) {
+            if (!writeBehindStore.get().get(cartId).setQuantity(productId, null, quantity)) {
+                throw new ResourceNotFoundException("Item not found");
+            }
+            return;
+        }
         Cart cart = cartRepository.findById(cartId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
 
@@ -146,13 +122,163 @@ public class CartItemService implements ICartItemService {
 
         // Update the cart's total amount
         cart.updateTotalAmount();
+        cart.touch();
         cartRepository.save(cart);
     }
 
     @Override
-    public CartItem getCartItem(Long cartId, Long productId) {
-        Cart cart = cartRepository.findById(cartId)
+    @Transactional
+    public void applyOperations(Long cartId, List<CartOperationRequest> operations) {
+        validateOperations(operations);
+        Map<LineKey, LinePrice> prices = resolvePrices(operations);
+
+        if (writeBehindStore.isPresent()) {
+            writeBehindStore.get().get(cartId).applyAtomically(hotCart -> operations.forEach(operation -> {
+                boolean applied = switch (operation.getType()) {
+                    case ADD -> {
+                        LinePrice price = prices.get(new LineKey(operation.getProductId(), operation.getVariantId()));
+                        hotCart.add(operation.getProductId(), operation.getVariantId(), price.variantName(),
+                                price.unitPrice(), operation.getQuantity());
+                        yield true;
+                    }
+                    case UPDATE -> hotCart.setQuantity(operation.getProductId(), operation.getVariantId(), operation.getQuantity());
+                    case REMOVE -> hotCart.removeLine(operation.getProductId(), operation.getVariantId());
+                };
+                if (!applied) {
+                    throw new ResourceNotFoundException("Item not found: product " + operation.getProductId());
+                }
+            }));
+            return;
+        }
+
+        // One cart load, every operation applied in memory, one total and one save; any failure rolls back the batch
+        Cart cart = cartRepository.findWithItemsById(cartId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+        for (CartOperationRequest operation : operations) {
+            switch (operation.getType()) {
+                case ADD -> {
+                    LinePrice price = prices.get(new LineKey(operation.getProductId(), operation.getVariantId()));
+                    CartItem item = findLine(cart, operation.getProductId(), operation.getVariantId(), true);
+                    int quantity = operation.getQuantity();
+                    if (item == null) {
+                        item = new CartItem();
+                        item.setProduct(productRepository.getReferenceById(operation.getProductId()));
+                        item.setVariantId(operation.getVariantId());
+                        item.setVariantName(price.variantName());
+                        item.setUnitPrice(price.unitPrice());
+                        item.setCart(cart);
+                        cart.getItems().add(item);
+                    } else {
+                        quantity += item.getQuantity();
+                    }
+                    item.setQuantity(quantity);
+                    item.setTotalPrice();
+                }
+                case UPDATE -> {
+                    CartItem item = requireLine(cart, operation);
+                    item.setQuantity(operation.getQuantity());
+                    item.setTotalPrice();
+                }
+                case REMOVE -> {
+                    CartItem item = requireLine(cart, operation);
+                    cart.getItems().remove(item);
+                    item.setCart(null);
+                }
+            }
+        }
+        cart.updateTotalAmount();
+        cart.touch();
+        cartRepository.save(cart);
+    }
+
+    private static void validateOperations(List<CartOperationRequest> operations) {
+        if (operations == null || operations.isEmpty()) {
+            throw new IllegalArgumentException("At least one cart operation is required");
+        }
+        if (operations.size() > MAX_OPERATIONS) {
+            throw new IllegalArgumentException("A batch cannot have more than " + MAX_OPERATIONS + " operations");
+        }
+        for (CartOperationRequest operation : operations) {
+            if (operation.getType() == null || operation.getProductId() == null) {
+                throw new IllegalArgumentException("Every operation needs a type and a productId");
+            }
+            if (operation.getType() != CartOperationType.REMOVE
+                    && (operation.getQuantity() == null || operation.getQuantity() < 1)) {
+                throw new IllegalArgumentException("Quantity must be at least 1 for " + operation.getType());
+            }
+        }
+    }
+
+    /**
+     * Unit price (and variant name) of every line the batch may create, with one query for products
+     * and one for variants, whatever the number of operations
+     */
+    private Map<LineKey, LinePrice> resolvePrices(List<CartOperationRequest> operations) {
+        List<CartOperationRequest> additions = operations.stream()
+                .filter(operation -> operation.getType() == CartOperationType.ADD)
+                .toList();
+        Set<Long> productIds = additions.stream()
+                .filter(operation -> operation.getVariantId() == null)
+                .map(CartOperationRequest::getProductId)
+                .collect(Collectors.toSet());
+        Set<Long> variantIds = additions.stream()
+                .map(CartOperationRequest::getVariantId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<LineKey, LinePrice> prices = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            for (Object[] row : productRepository.findIdAndPriceByIdIn(productIds)) {
+                prices.put(new LineKey((Long) row[0], null), new LinePrice((BigDecimal) row[1], null));
+            }
+        }
+        if (!variantIds.isEmpty()) {
+            for (VariantRepository.VariantPricing variant : variantRepository.findPricingByIdIn(variantIds)) {
+                prices.put(new LineKey(variant.getProductId(), variant.getId()),
+                        new LinePrice(variant.getPrice(), variant.getName()));
+            }
+        }
+
+        for (CartOperationRequest addition : additions) {
+            if (!prices.containsKey(new LineKey(addition.getProductId(), addition.getVariantId()))) {
+                throw new ResourceNotFoundException(addition.getVariantId() == null
+                        ? "Product not found: " + addition.getProductId()
+                        : "Variant " + addition.getVariantId() + " not found for product " + addition.getProductId());
+            }
+        }
+        return prices;
+    }
+
+    private static CartItem requireLine(Cart cart, CartOperationRequest operation) {
+        CartItem item = findLine(cart, operation.getProductId(), operation.getVariantId(), false);
+        if (item == null) {
+            throw new ResourceNotFoundException("Item not found: product " + operation.getProductId());
+        }
+        return item;
+    }
+
+    /**
+     * Line of the product and variant; unless exact, a missing variant matches the first line of the product
+     */
+    private static CartItem findLine(Cart cart, Long productId, Long variantId, boolean exact) {
+        return cart.getItems().stream()
+                .filter(item -> item.getProduct() != null && item.getProduct().getId().equals(productId))
+                .filter(item -> Objects.equals(item.getVariantId(), variantId) || (!exact && variantId == null))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private record LineKey(Long productId, Long variantId) {
+    }
+
+    private record LinePrice(BigDecimal unitPrice, String variantName) {
+    }
+
+    @Override
+    public CartItem getCartItem(Long cartId, Long productId) {
+        Cart cart = writeBehindStore.isPresent()
+                ? writeBehindStore.get().view(cartId)
+                : cartRepository.findById(cartId).orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
         return cart.getItems()
                 .stream()
                 .filter(item -> item.getProduct() != null && item.getProduct().getId().equals(productId))
@@ -1,49 +1,73 @@
 package com.emerbv.ecommdb.service.cart;
 
 import com.emerbv.ecommdb.dto.CartDto;
-import com.emerbv.ecommdb.dto.CartItemDto;
-import com.emerbv.ecommdb.dto.ImageDto;
+import com.emerbv.ecommdb.dto.ProductDto;
 import com.emerbv.ecommdb.exceptions.ResourceNotFoundException;
+import com.emerbv.ecommdb.mapper.CartMapper;
 import com.emerbv.ecommdb.model.Cart;
 import com.emerbv.ecommdb.model.CartItem;
-import com.emerbv.ecommdb.model.Image;
+import com.emerbv.ecommdb.model.Product;
 import com.emerbv.ecommdb.model.User;
 import com.emerbv.ecommdb.repository.CartItemRepository;
 import com.emerbv.ecommdb.repository.CartRepository;
-import com.emerbv.ecommdb.repository.ImageRepository;
+import com.emerbv.ecommdb.service.product.IProductService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
-public class CartService implements ICartService {
+public class CartService implements ICartService, SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(CartService.class);
+
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final AtomicLong cartIdGenerator = new AtomicLong(0);
-    private final ModelMapper modelMapper;
-    private final ImageRepository imageRepository;
+    private final IProductService productService;
+    private final CartMapper cartMapper;
+    // Present with app.cart.store=write-behind, see CartWriteBehindStore
+    private final Optional<CartWriteBehindStore> writeBehindStore;
+
+    /**
+     * Antes de que se ejecuten los procesos de carritos abandonados: los carritos creados antes de registrar
+     * la actividad no la tienen y nunca entrarían en su ventana, se toma como actividad el arranque
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        int backfilled = cartRepository.backfillLastActivity();
+        if (backfilled > 0) {
+            logger.info("Última actividad inicializada para {} carritos", backfilled);
+        }
+    }
 
     @Override
     public Cart getCart(Long cartId) {
-        Cart cart = cartRepository.findById(cartId)
+        if (writeBehindStore.isPresent()) {
+            return writeBehindStore.get().view(cartId);
+        }
+        return cartRepository.findById(cartId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
-        BigDecimal totalAmount = cart.getTotalAmount();
-        cart.setTotalAmount(totalAmount);
-        return cartRepository.save(cart);
     }
 
     @Transactional
     @Override
     public void clearCart(Long id) {
-        Cart cart = getCart(id);
+        writeBehindStore.ifPresent(store -> store.discard(id));
+        Cart cart = cartRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
         cartItemRepository.deleteAllByCartId(id);
         cart.clearCart();
         cartRepository.deleteById(id);
@@ -51,8 +75,11 @@ public class CartService implements ICartService {
 
     @Override
     public BigDecimal getTotalPrice(Long id) {
-        Cart cart = getCart(id);
-        return cart.getTotalAmount();
+        if (writeBehindStore.isPresent()) {
+            return writeBehindStore.get().get(id).snapshot().totalAmount();
+        }
+        return cartRepository.findTotalAmountById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
     }
 
     @Override
@@ -65,44 +92,59 @@ public class CartService implements ICartService {
                 });
     }
 
+    @Override
+    public void flushCart(Long cartId) {
+        writeBehindStore.ifPresent(store -> store.flush(cartId));
+    }
+
     @Override
     public Cart getCartByUserId(Long userId) {
         return cartRepository.findByUserId(userId);
     }
 
     @Override
-    public CartDto convertToDto(Cart cart) {
-        CartDto cartDto = modelMapper.map(cart, CartDto.class);
-        if (cart.getItems() != null) {
-            cartDto.setItems(cart.getItems().stream()
-                    .map(this::convertCartItemToDto)
-                    .collect(Collectors.toSet()));
+    public CartDto getCartView(Long cartId) {
+        if (writeBehindStore.isPresent()) {
+            // Las líneas más recientes están en memoria, no en la base de datos
+            return convertToDto(writeBehindStore.get().view(cartId));
         }
-        return cartDto;
+        return cartMapper.toDtos(cartRepository.findLinesByCartId(cartId)).values().stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
     }
 
-    private CartItemDto convertCartItemToDto(CartItem cartItem) {
-        CartItemDto cartItemDto = modelMapper.map(cartItem, CartItemDto.class);
-
-        // Si el producto existe, obtener sus imágenes
-        if (cartItem.getProduct() != null) {
-            List<Image> images = imageRepository.findByProductId(cartItem.getProduct().getId());
-
-            // Convertir las imágenes a DTOs
-            List<ImageDto> imageDtos = images.stream()
-                    .map(image -> {
-                        ImageDto imageDto = new ImageDto();
-                        imageDto.setId(image.getId());
-                        imageDto.setFileName(image.getFileName());
-                        imageDto.setDownloadUrl(image.getDownloadUrl());
-                        return imageDto;
-                    })
-                    .collect(Collectors.toList());
+    @Override
+    public CartDto getCartViewByUserId(Long userId) {
+        if (writeBehindStore.isPresent()) {
+            return cartRepository.findIdByUserId(userId)
+                    .map(this::getCartView)
+                    .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+        }
+        return cartMapper.toDtos(cartRepository.findLinesByUserId(userId)).values().stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
+    }
 
-            // Asignar las imágenes al DTO del CartItem
-            cartItemDto.setImages(imageDtos);
+    @Override
+    public Map<Long, CartDto> getCartViews(Collection<Long> cartIds) {
+        // Los procesos de carritos abandonados miran carritos sin actividad, ya escritos aunque haya carrito en memoria
+        if (cartIds.isEmpty()) {
+            return Map.of();
         }
+        return cartMapper.toDtos(cartRepository.findLinesByCartIdIn(cartIds));
+    }
 
-        return cartItemDto;
+    @Override
+    public CartDto convertToDto(Cart cart) {
+        // Convert every product in the cart in one batch instead of querying images per line
+        List<Product> products = cart.getItems() == null ? List.of() : cart.getItems().stream()
+                .map(CartItem::getProduct)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, ProductDto> productDtos = productService.getConvertedProducts(products)
+                .stream()
+                .collect(Collectors.toMap(ProductDto::getId, Function.identity()));
+        return cartMapper.toDto(cart, productDtos);
     }
 }
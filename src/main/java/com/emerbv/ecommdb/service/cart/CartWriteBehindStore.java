@@ -0,0 +1,313 @@
+package com.emerbv.ecommdb.service.cart;
+
+import com.emerbv.ecommdb.exceptions.ResourceNotFoundException;
+import com.emerbv.ecommdb.model.Cart;
+import com.emerbv.ecommdb.model.CartItem;
+import com.emerbv.ecommdb.model.Product;
+import com.emerbv.ecommdb.repository.CartRepository;
+import com.emerbv.ecommdb.repository.ProductRepository;
+import com.emerbv.ecommdb.service.catalog.ProductChangedEvent;
+import com.emerbv.ecommdb.service.catalog.ProductsDeletedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Carrito en memoria (app.cart.store=write-behind): los carritos activos se guardan en una caché acotada,
+ * las modificaciones solo cambian la copia en memoria y un proceso periódico escribe los carritos con cambios
+ * en Cart/CartItem. Varias modificaciones seguidas acaban en una sola escritura.
+ * <p>
+ * La ventana de durabilidad es app.cart.write-behind.flush-interval-ms: si el proceso cae se pierden como mucho
+ * los cambios de ese intervalo. En el checkout el carrito se escribe de forma síncrona. Solo es válido con una
+ * instancia o con sesiones fijadas a una instancia, ya que cada una tiene su propia copia de los carritos.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "write-behind")
+public class CartWriteBehindStore {
+    private static final Logger logger = LoggerFactory.getLogger(CartWriteBehindStore.class);
+
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readTransactionTemplate;
+    private final Cache<Long, HotCart> carts;
+    // Carritos con cambios expulsados de la caché, hasta que se escriben; una lectura los recupera de aquí
+    private final Map<Long, HotCart> evicted = new ConcurrentHashMap<>();
+    private final Counter flushes;
+    private final Counter flushFailures;
+
+    public CartWriteBehindStore(
+            CartRepository cartRepository,
+            ProductRepository productRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${app.cart.write-behind.max-carts:50000}") long maxCarts,
+            @Value("${app.cart.write-behind.idle-minutes:30}") long idleMinutes) {
+        this.cartRepository = cartRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readTransactionTemplate.setReadOnly(true);
+        this.carts = Caffeine.newBuilder()
+                .maximumSize(maxCarts)
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .recordStats()
+                .evictionListener((Long cartId, HotCart cart, RemovalCause cause) -> {
+                    if (cartId != null && cart != null && cart.isDirty()) {
+                        evicted.put(cartId, cart);
+                    }
+                })
+                .removalListener((Long cartId, HotCart cart, RemovalCause cause) -> {
+                    // Si la escritura falla sigue en evicted y flushDirtyCarts la reintenta
+                    if (cause.wasEvicted() && cartId != null && cart != null && evicted.get(cartId) == cart
+                            && flushQuietly(cart)) {
+                        evicted.remove(cartId, cart);
+                    }
+                })
+                .build();
+
+        // Aciertos, cargas y expulsiones de la caché, más las escrituras a la base de datos
+        CaffeineCacheMetrics.monitor(meterRegistry, carts, "carts");
+        this.flushes = meterRegistry.counter("carts.write_behind.flushes");
+        this.flushFailures = meterRegistry.counter("carts.write_behind.flush_failures");
+        meterRegistry.gauge("carts.write_behind.evicted_pending", evicted, Map::size);
+        logger.info("Carrito en memoria activado: máximo {} carritos, {} minutos de inactividad", maxCarts, idleMinutes);
+    }
+
+    /**
+     * Copia en memoria del carrito, cargada de la base de datos la primera vez
+     */
+    HotCart get(Long cartId) {
+        HotCart cart = carts.get(cartId, this::load);
+        if (cart == null) {
+            throw new ResourceNotFoundException("Cart not found");
+        }
+        return cart;
+    }
+
+    /**
+     * Cart entity built from the in-memory copy for reading and mapping, never saved;
+     * the products are read in one query
+     */
+    Cart view(Long cartId) {
+        HotCart.Snapshot snapshot = get(cartId).snapshot();
+        List<Long> productIds = snapshot.lines().stream().map(HotCart.CartLine::productId).distinct().toList();
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        Cart cart = new Cart();
+        cart.setId(cartId);
+        for (HotCart.CartLine line : snapshot.lines()) {
+            CartItem item = new CartItem();
+            item.setId(line.itemId());
+            item.setProduct(products.get(line.productId()));
+            item.setVariantId(line.variantId());
+            item.setVariantName(line.variantName());
+            item.setQuantity(line.quantity());
+            item.setUnitPrice(line.unitPrice());
+            item.setTotalPrice(line.totalPrice());
+            cart.getItems().add(item);
+        }
+        cart.setTotalAmount(snapshot.totalAmount());
+        return cart;
+    }
+
+    private HotCart load(Long cartId) {
+        HotCart pending = evicted.get(cartId);
+        if (pending != null) {
+            return pending;
+        }
+        return readTransactionTemplate.execute(status -> cartRepository.findById(cartId)
+                .map(HotCart::from)
+                .orElse(null));
+    }
+
+    /**
+     * Olvida el carrito sin escribirlo, cuando se vacía o se borra en la base de datos
+     */
+    void discard(Long cartId) {
+        evicted.remove(cartId);
+        carts.invalidate(cartId);
+    }
+
+    /**
+     * Cada carrito se escribe en su propia transacción: uno que falla se reintenta en el siguiente
+     * ciclo sin deshacer ni retrasar la escritura de los demás. Los expulsados de la caché cuya
+     * escritura falló se reintentan igual y se olvidan cuando por fin se escriben
+     */
+    @Scheduled(fixedDelayString = "${app.cart.write-behind.flush-interval-ms:2000}")
+    public void flushDirtyCarts() {
+        for (HotCart cart : carts.asMap().values()) {
+            if (cart.isDirty()) {
+                flushQuietly(cart);
+            }
+        }
+        evicted.forEach((cartId, cart) -> {
+            if (flushQuietly(cart)) {
+                evicted.remove(cartId, cart);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushDirtyCarts();
+    }
+
+    /**
+     * Escribe ya el carrito si tiene cambios. Dentro de una transacción (checkout) se une a ella
+     * y el carrito solo queda limpio si esa transacción confirma
+     */
+    void flush(Long cartId) {
+        HotCart cart = carts.getIfPresent(cartId);
+        if (cart == null) {
+            cart = evicted.get(cartId);
+        }
+        if (cart != null) {
+            flush(cart);
+        }
+    }
+
+    private boolean flushQuietly(HotCart cart) {
+        try {
+            flush(cart);
+            return true;
+        } catch (RuntimeException e) {
+            logger.error("Error al escribir el carrito {}, se reintenta en el siguiente ciclo: {}",
+                    cart.getCartId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void flush(HotCart cart) {
+        synchronized (cart.flushMonitor) {
+            if (!cart.isDirty()) {
+                return;
+            }
+            HotCart.Snapshot snapshot = cart.snapshot();
+            Map<HotCart.LineKey, Long> itemIds;
+            try {
+                itemIds = transactionTemplate.execute(status -> write(cart.getCartId(), snapshot));
+            } catch (RuntimeException e) {
+                flushFailures.increment();
+                throw e;
+            }
+            flushes.increment();
+
+            if (itemIds == null) {
+                // El carrito ya no existe (pedido realizado o vaciado desde otra instancia)
+                discard(cart.getCartId());
+                return;
+            }
+            afterCommit(() -> cart.markFlushed(snapshot.version(), itemIds));
+        }
+    }
+
+    /**
+     * Lleva las líneas de la copia en memoria a Cart/CartItem: actualiza las que existen,
+     * inserta las nuevas y borra las que ya no están
+     */
+    private Map<HotCart.LineKey, Long> write(Long cartId, HotCart.Snapshot snapshot) {
+        Cart cart = cartRepository.findById(cartId).orElse(null);
+        if (cart == null) {
+            return null;
+        }
+
+        Map<HotCart.LineKey, CartItem> existing = new HashMap<>();
+        List<CartItem> removed = new ArrayList<>();
+        for (CartItem item : cart.getItems()) {
+            if (item.getProduct() == null) {
+                continue;
+            }
+            HotCart.LineKey key = new HotCart.LineKey(item.getProduct().getId(), item.getVariantId());
+            if (existing.putIfAbsent(key, item) != null) {
+                removed.add(item);
+            }
+        }
+
+        Map<HotCart.LineKey, CartItem> written = new HashMap<>();
+        for (HotCart.CartLine line : snapshot.lines()) {
+            CartItem item = existing.remove(line.key());
+            if (item == null) {
+                item = new CartItem();
+                item.setProduct(productRepository.getReferenceById(line.productId()));
+                item.setVariantId(line.variantId());
+                item.setVariantName(line.variantName());
+                item.setUnitPrice(line.unitPrice());
+                item.setCart(cart);
+                cart.getItems().add(item);
+            }
+            item.setQuantity(line.quantity());
+            item.setTotalPrice();
+            written.put(line.key(), item);
+        }
+        removed.addAll(existing.values());
+        for (CartItem item : removed) {
+            cart.getItems().remove(item);
+            item.setCart(null);
+        }
+        cart.updateTotalAmount();
+        // Un carrito sucio se escribe a los pocos segundos del cambio, la hora de escritura vale como actividad
+        cart.touch();
+        cartRepository.saveAndFlush(cart);
+
+        Map<HotCart.LineKey, Long> itemIds = new HashMap<>();
+        written.forEach((key, item) -> itemIds.put(key, item.getId()));
+        return itemIds;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Las líneas de productos borrados ya no están en la base de datos, tampoco deben volver con la siguiente escritura
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            removeProducts(List.of(event.getProductId()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsDeleted(ProductsDeletedEvent event) {
+        removeProducts(event.getProductIds());
+    }
+
+    private void removeProducts(List<Long> productIds) {
+        carts.asMap().values().forEach(cart -> cart.removeProducts(productIds));
+        evicted.values().forEach(cart -> cart.removeProducts(productIds));
+    }
+}
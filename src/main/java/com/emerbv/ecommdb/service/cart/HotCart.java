@@ -0,0 +1,193 @@
+package com.emerbv.ecommdb.service.cart;
+
+import com.emerbv.ecommdb.model.Cart;
+import com.emerbv.ecommdb.model.CartItem;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * In-memory copy of an active cart for {@link CartWriteBehindStore}. Mutations are serialized on the
+ * instance and bump a version; the cart is dirty until a flush of the current version has committed.
+ */
+final class HotCart {
+    private final Long cartId;
+    private final Map<LineKey, Line> lines = new LinkedHashMap<>();
+    private long version;
+    private long flushedVersion;
+
+    // Held while a flush writes to the database, so flushes of one cart never overlap
+    final Object flushMonitor = new Object();
+
+    record LineKey(Long productId, Long variantId) {
+    }
+
+    record CartLine(Long itemId, Long productId, Long variantId, String variantName,
+                    int quantity, BigDecimal unitPrice, BigDecimal totalPrice) {
+
+        LineKey key() {
+            return new LineKey(productId, variantId);
+        }
+    }
+
+    record Snapshot(long version, List<CartLine> lines, BigDecimal totalAmount) {
+    }
+
+    private static final class Line {
+        private Long itemId;
+        private final Long productId;
+        private final Long variantId;
+        private final String variantName;
+        private final BigDecimal unitPrice;
+        private int quantity;
+
+        private Line(Long itemId, Long productId, Long variantId, String variantName, BigDecimal unitPrice, int quantity) {
+            this.itemId = itemId;
+            this.productId = productId;
+            this.variantId = variantId;
+            this.variantName = variantName;
+            this.unitPrice = unitPrice;
+            this.quantity = quantity;
+        }
+
+        private boolean matches(Long productId, Long variantId) {
+            return this.productId.equals(productId) && (variantId == null || variantId.equals(this.variantId));
+        }
+
+        private Line copy() {
+            return new Line(itemId, productId, variantId, variantName, unitPrice, quantity);
+        }
+
+        private BigDecimal totalPrice() {
+            return unitPrice != null ? unitPrice.multiply(BigDecimal.valueOf(quantity)) : BigDecimal.ZERO;
+        }
+    }
+
+    private HotCart(Long cartId) {
+        this.cartId = cartId;
+    }
+
+    /**
+     * Copy of a cart read from the database; repeated lines of the same product and variant are merged
+     * and written back as one on the next flush
+     */
+    static HotCart from(Cart cart) {
+        HotCart hotCart = new HotCart(cart.getId());
+        for (CartItem item : cart.getItems()) {
+            if (item.getProduct() == null) {
+                continue;
+            }
+            LineKey key = new LineKey(item.getProduct().getId(), item.getVariantId());
+            Line existing = hotCart.lines.get(key);
+            if (existing != null) {
+                existing.quantity += item.getQuantity();
+                hotCart.version++;
+            } else {
+                hotCart.lines.put(key, new Line(item.getId(), key.productId(), item.getVariantId(),
+                        item.getVariantName(), item.getUnitPrice(), item.getQuantity()));
+            }
+        }
+        return hotCart;
+    }
+
+    Long getCartId() {
+        return cartId;
+    }
+
+    synchronized void add(Long productId, Long variantId, String variantName, BigDecimal unitPrice, int quantity) {
+        LineKey key = new LineKey(productId, variantId);
+        Line line = lines.get(key);
+        if (line == null) {
+            lines.put(key, new Line(null, productId, variantId, variantName, unitPrice, quantity));
+        } else {
+            // An existing line keeps its unit price, as in the database store
+            line.quantity += quantity;
+        }
+        version++;
+    }
+
+    /**
+     * Removes the line of the product and variant; without variant, the first line of the product
+     * whatever its variant, like CartItemService does
+     */
+    synchronized boolean removeLine(Long productId, Long variantId) {
+        Iterator<Line> iterator = lines.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().matches(productId, variantId)) {
+                iterator.remove();
+                version++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    synchronized boolean setQuantity(Long productId, Long variantId, int quantity) {
+        for (Line line : lines.values()) {
+            if (line.matches(productId, variantId)) {
+                line.quantity = quantity;
+                version++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies several changes as one: if any of them fails the cart is left as it was
+     */
+    synchronized void applyAtomically(Consumer<HotCart> changes) {
+        Map<LineKey, Line> previousLines = new LinkedHashMap<>();
+        lines.forEach((key, line) -> previousLines.put(key, line.copy()));
+        long previousVersion = version;
+        try {
+            changes.accept(this);
+        } catch (RuntimeException e) {
+            lines.clear();
+            lines.putAll(previousLines);
+            version = previousVersion;
+            throw e;
+        }
+    }
+
+    synchronized void removeProducts(Collection<Long> productIds) {
+        if (lines.values().removeIf(line -> productIds.contains(line.productId))) {
+            version++;
+        }
+    }
+
+    synchronized boolean isDirty() {
+        return version != flushedVersion;
+    }
+
+    synchronized Snapshot snapshot() {
+        List<CartLine> copy = new ArrayList<>(lines.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (Line line : lines.values()) {
+            BigDecimal totalPrice = line.totalPrice();
+            copy.add(new CartLine(line.itemId, line.productId, line.variantId, line.variantName,
+                    line.quantity, line.unitPrice, totalPrice));
+            total = total.add(totalPrice);
+        }
+        return new Snapshot(version, copy, total);
+    }
+
+    /**
+     * Called once the flush of a snapshot has committed; changes made meanwhile keep the cart dirty
+     */
+    synchronized void markFlushed(long flushed, Map<LineKey, Long> itemIds) {
+        itemIds.forEach((key, itemId) -> {
+            Line line = lines.get(key);
+            if (line != null) {
+                line.itemId = itemId;
+            }
+        });
+        flushedVersion = Math.max(flushedVersion, flushed);
+    }
+}
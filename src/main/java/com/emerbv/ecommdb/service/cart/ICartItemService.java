@@ -1,6 +1,9 @@
 package com.emerbv.ecommdb.service.cart;
 
 import com.emerbv.ecommdb.model.CartItem;
+import com.emerbv.ecommdb.request.CartOperationRequest;
+
+import java.util.List;
 
 public interface ICartItemService {
     void addItemToCart(Long cartId, Long productId, int quantity);
@@ -8,6 +11,7 @@ public interface ICartItemService {
     void addItemToCartWithoutVariant(Long cartId, Long productId, int quantity);
     void removeItemFromCart(Long cartId, Long productId);
     void updateItemQuantity(Long cartId, Long itemId, int quantity);
+    void applyOperations(Long cartId, List<CartOperationRequest> operations);
 
     CartItem getCartItem(Long cartId, Long productId);
 }
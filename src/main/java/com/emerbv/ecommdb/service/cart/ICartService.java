@@ -5,6 +5,8 @@ import com.emerbv.ecommdb.model.Cart;
 import com.emerbv.ecommdb.model.User;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
 
 public interface ICartService {
     Cart getCart(Long id);
@@ -12,5 +14,22 @@ public interface ICartService {
     BigDecimal getTotalPrice(Long id);
     Cart initializeNewCart(User user);
     Cart getCartByUserId(Long userId);
+
+    /**
+     * Escribe en la base de datos los cambios pendientes del carrito en memoria (app.cart.store=write-behind);
+     * sin carrito en memoria no hace nada
+     */
+    void flushCart(Long cartId);
     CartDto convertToDto(Cart cart);
+
+    /**
+     * Vista de solo lectura del carrito (líneas, resumen del producto y primera imagen), sin escrituras
+     */
+    CartDto getCartView(Long cartId);
+    CartDto getCartViewByUserId(Long userId);
+
+    /**
+     * Vistas de varios carritos en una sola consulta, para los procesos de carritos abandonados
+     */
+    Map<Long, CartDto> getCartViews(Collection<Long> cartIds);
 }
@@ -0,0 +1,20 @@
+package com.emerbv.ecommdb.service.catalog;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published after the catalog snapshot has been swapped, either by a full rebuild
+ * ({@code productId == null}) or by an incremental patch of a single product.
+ * Secondary read models (search, caches...) derive their state from the new snapshot.
+ */
+@Getter
+@AllArgsConstructor
+public class CatalogChangedEvent {
+    private final CatalogSnapshot snapshot;
+    private final Long productId;
+
+    public boolean isFullRebuild() {
+        return productId == null;
+    }
+}
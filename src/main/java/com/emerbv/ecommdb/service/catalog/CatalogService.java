@@ -0,0 +1,252 @@
+package com.emerbv.ecommdb.service.catalog;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.enums.ProductStatus;
+import com.emerbv.ecommdb.model.Product;
+import com.emerbv.ecommdb.repository.ProductRepository;
+import com.emerbv.ecommdb.service.category.CategoryChangedEvent;
+import com.emerbv.ecommdb.service.product.IProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory read model of the catalog.
+ * Browse endpoints are served from an immutable {@link CatalogSnapshot}; product, variant and image
+ * writes patch the snapshot incrementally through {@link ProductChangedEvent}, category writes rebuild
+ * it, and a periodic full rebuild catches any change made outside the services.
+ */
+@Service
+public class CatalogService implements ICatalogService {
+    private static final Logger logger = LoggerFactory.getLogger(CatalogService.class);
+
+    private final ProductRepository productRepository;
+    private final IProductService productService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>(CatalogSnapshot.empty());
+    // Snapshot versions restart with the application, the boot time keeps ETags from colliding across restarts
+    private final String instanceTag = Long.toString(System.currentTimeMillis(), 36);
+
+    public CatalogService(
+            ProductRepository productRepository,
+            IProductService productService,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.eventPublisher = eventPublisher;
+        // Rebuilds are also triggered internally (first read, startup), so the transaction is managed explicitly
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot.get();
+        return current.isBuilt() ? current : buildIfMissing();
+    }
+
+    /**
+     * First build for the readers arriving before it exists (Tomcat accepts requests before the
+     * startup build): the first one loads the catalog, the ones queued behind it get its snapshot.
+     */
+    private synchronized CatalogSnapshot buildIfMissing() {
+        CatalogSnapshot current = snapshot.get();
+        return current.isBuilt() ? current : rebuild();
+    }
+
+    @Override
+    public synchronized CatalogSnapshot rebuild() {
+        long start = System.currentTimeMillis();
+        List<ProductDto> productDtos = readOnlyTransaction.execute(status ->
+                productService.getConvertedProducts(productRepository.findAll()));
+
+        CatalogSnapshot rebuilt = CatalogSnapshot.of(productDtos, snapshot.get().getVersion() + 1);
+        snapshot.set(rebuilt);
+        eventPublisher.publishEvent(new CatalogChangedEvent(rebuilt, null));
+
+        logger.info("Catalog snapshot v{} rebuilt with {} products in {} ms",
+                rebuilt.getVersion(), rebuilt.size(), System.currentTimeMillis() - start);
+        return rebuilt;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        // Early requests may have built it already
+        getSnapshot();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.rebuild-interval-ms:900000}",
+            initialDelayString = "${app.catalog.rebuild-interval-ms:900000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Scheduled catalog rebuild failed, keeping snapshot v{}: {}",
+                    snapshot.get().getVersion(), e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        CatalogSnapshot current = snapshot.get();
+        if (!current.isBuilt()) {
+            // The first read will build the full snapshot anyway
+            return;
+        }
+
+        Optional<Product> product = event.isDeleted()
+                ? Optional.empty()
+                : productRepository.findWithImagesById(event.getProductId());
+
+        CatalogSnapshot patched = product
+                .map(p -> current.withProduct(productService.convertToDto(p)))
+                .orElseGet(() -> current.withoutProduct(event.getProductId()));
+        snapshot.set(patched);
+        eventPublisher.publishEvent(new CatalogChangedEvent(patched, event.getProductId()));
+
+        logger.debug("Catalog snapshot patched to v{} for product {}", patched.getVersion(), event.getProductId());
+    }
+
+    /**
+     * Every product carries its category name, so a renamed or deleted category is only visible in
+     * the snapshot after a full rebuild. Category writes are rare, the catalog is simply loaded again.
+     * Runs before the read models and caches that handle the same event, so they see the new snapshot.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void onCategoryChanged(CategoryChangedEvent event) {
+        if (snapshot.get().isBuilt()) {
+            rebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductsDeleted(ProductsDeletedEvent event) {
+        CatalogSnapshot current = snapshot.get();
+        if (!current.isBuilt()) {
+            return;
+        }
+
+        CatalogSnapshot patched = current.withoutProducts(event.getProductIds());
+        if (patched == current) {
+            return;
+        }
+        snapshot.set(patched);
+        // Several products at once: secondary read models rebuild from the new snapshot
+        eventPublisher.publishEvent(new CatalogChangedEvent(patched, null));
+
+        logger.debug("Catalog snapshot patched to v{} without {} products", patched.getVersion(), event.getProductIds().size());
+    }
+
+    @Override
+    public Map<String, Object> getCatalogInfo() {
+        CatalogSnapshot current = getSnapshot();
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("version", current.getVersion());
+        info.put("builtAt", current.getBuiltAt());
+        info.put("updatedAt", current.getUpdatedAt());
+        info.put("productCount", current.size());
+        info.put("etag", getCatalogETag());
+        return info;
+    }
+
+    @Override
+    public String getCatalogETag() {
+        return "c" + instanceTag + "-" + getSnapshot().getVersion();
+    }
+
+    @Override
+    public long getLastModified() {
+        LocalDateTime updatedAt = getSnapshot().getUpdatedAt();
+        return updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+
+    @Override
+    public Optional<ProductDto> getProductById(Long id) {
+        return getSnapshot().getProduct(id);
+    }
+
+    @Override
+    public List<ProductDto> getAllProducts() {
+        return getSnapshot().getProducts();
+    }
+
+    @Override
+    public List<ProductDto> getProductsByCategory(String category) {
+        return getSnapshot().getProductsByCategory(category);
+    }
+
+    @Override
+    public List<ProductDto> getProductsByBrand(String brand) {
+        return getSnapshot().getProductsByBrand(brand);
+    }
+
+    @Override
+    public List<ProductDto> getProductsByCategoryAndBrand(String category, String brand) {
+        String brandKey = CatalogSnapshot.normalize(brand);
+        return CatalogSnapshot.filter(getSnapshot().getProductsByCategory(category),
+                product -> product.getBrand() != null && CatalogSnapshot.normalize(product.getBrand()).equals(brandKey));
+    }
+
+    @Override
+    public List<ProductDto> getProductsByBrandAndName(String brand, String name) {
+        String nameKey = CatalogSnapshot.normalize(name);
+        return CatalogSnapshot.filter(getSnapshot().getProductsByBrand(brand),
+                product -> product.getName() != null && CatalogSnapshot.normalize(product.getName()).equals(nameKey));
+    }
+
+    @Override
+    public List<ProductDto> getProductsByNameContaining(String name) {
+        // Same semantics as the former LIKE '%name%' query: case-insensitive substring of the name
+        String nameKey = name.toLowerCase(Locale.ROOT);
+        return getSnapshot().filter(product ->
+                product.getName() != null && product.getName().toLowerCase(Locale.ROOT).contains(nameKey));
+    }
+
+    @Override
+    public List<ProductDto> getProductsByStatus(ProductStatus status) {
+        return getSnapshot().filter(product -> product.getStatus() == status);
+    }
+
+    @Override
+    public List<ProductDto> getRecentProducts() {
+        LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
+        return getSnapshot().filter(product ->
+                product.getCreatedAt() != null && product.getCreatedAt().isAfter(sevenDaysAgo));
+    }
+
+    @Override
+    public List<ProductDto> getPreOrderProducts() {
+        return getSnapshot().filter(ProductDto::isPreOrder);
+    }
+
+    @Override
+    public List<ProductDto> getPreOrderProductsByStatus(ProductStatus status) {
+        return getSnapshot().filter(product -> product.isPreOrder() && Objects.equals(product.getStatus(), status));
+    }
+}
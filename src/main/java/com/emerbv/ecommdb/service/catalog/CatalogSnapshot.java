@@ -0,0 +1,213 @@
+package com.emerbv.ecommdb.service.catalog;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Immutable, versioned view of the whole catalog.
+ * Every write produces a new snapshot (copy-on-write), so readers never need locks.
+ * The DTOs held here are shared between requests and must be treated as read-only.
+ */
+public final class CatalogSnapshot {
+    private final long version;
+    private final LocalDateTime builtAt;
+    private final LocalDateTime updatedAt;
+    private final Map<Long, ProductDto> products;
+    private final Map<String, List<ProductDto>> productsByCategory;
+    private final Map<String, List<ProductDto>> productsByBrand;
+
+    private CatalogSnapshot(long version, LocalDateTime builtAt, LocalDateTime updatedAt, Map<Long, ProductDto> products) {
+        this(version, builtAt, updatedAt, products,
+                groupBy(products.values(), CatalogSnapshot::categoryKey),
+                groupBy(products.values(), ProductDto::getBrand));
+    }
+
+    private CatalogSnapshot(long version, LocalDateTime builtAt, LocalDateTime updatedAt, Map<Long, ProductDto> products,
+                            Map<String, List<ProductDto>> productsByCategory, Map<String, List<ProductDto>> productsByBrand) {
+        this.version = version;
+        this.builtAt = builtAt;
+        this.updatedAt = updatedAt;
+        this.products = Collections.unmodifiableMap(products);
+        this.productsByCategory = productsByCategory;
+        this.productsByBrand = productsByBrand;
+    }
+
+    public static CatalogSnapshot empty() {
+        return new CatalogSnapshot(0, null, null, new LinkedHashMap<>());
+    }
+
+    public static CatalogSnapshot of(Collection<ProductDto> products, long version) {
+        Map<Long, ProductDto> byId = new LinkedHashMap<>();
+        products.stream()
+                .sorted(Comparator.comparing(ProductDto::getId))
+                .forEach(product -> byId.put(product.getId(), product));
+        LocalDateTime now = LocalDateTime.now();
+        return new CatalogSnapshot(version, now, now, byId);
+    }
+
+    /**
+     * Copy with one product added or replaced. Only the entries of that product and of its old and
+     * new category and brand are touched; the id order is kept without sorting the whole catalog.
+     */
+    public CatalogSnapshot withProduct(ProductDto product) {
+        ProductDto previous = products.get(product.getId());
+        Map<Long, ProductDto> copy;
+        if (previous != null || products.isEmpty() || product.getId() > lastId()) {
+            // Replaced in place, or a new id past the last one (identity ids only grow): insertion order stays sorted
+            copy = new LinkedHashMap<>(products);
+            copy.put(product.getId(), product);
+        } else {
+            copy = new LinkedHashMap<>(products.size() + 1);
+            boolean inserted = false;
+            for (Map.Entry<Long, ProductDto> entry : products.entrySet()) {
+                if (!inserted && entry.getKey() > product.getId()) {
+                    copy.put(product.getId(), product);
+                    inserted = true;
+                }
+                copy.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new CatalogSnapshot(version + 1, builtAt, LocalDateTime.now(), copy,
+                patchGroup(productsByCategory, previous, product, CatalogSnapshot::categoryKey),
+                patchGroup(productsByBrand, previous, product, ProductDto::getBrand));
+    }
+
+    public CatalogSnapshot withoutProduct(Long productId) {
+        ProductDto previous = products.get(productId);
+        if (previous == null) {
+            return this;
+        }
+        Map<Long, ProductDto> copy = new LinkedHashMap<>(products);
+        copy.remove(productId);
+        return new CatalogSnapshot(version + 1, builtAt, LocalDateTime.now(), copy,
+                patchGroup(productsByCategory, previous, null, CatalogSnapshot::categoryKey),
+                patchGroup(productsByBrand, previous, null, ProductDto::getBrand));
+    }
+
+    public CatalogSnapshot withoutProducts(Collection<Long> productIds) {
+        Map<Long, ProductDto> copy = new LinkedHashMap<>(products);
+        if (!copy.keySet().removeAll(productIds)) {
+            return this;
+        }
+        return new CatalogSnapshot(version + 1, builtAt, LocalDateTime.now(), copy);
+    }
+
+    public boolean isBuilt() {
+        return builtAt != null;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getBuiltAt() {
+        return builtAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    public Optional<ProductDto> getProduct(Long productId) {
+        return Optional.ofNullable(products.get(productId));
+    }
+
+    public List<ProductDto> getProducts() {
+        return List.copyOf(products.values());
+    }
+
+    public List<ProductDto> getProductsByCategory(String category) {
+        return lookup(productsByCategory, category);
+    }
+
+    public List<ProductDto> getProductsByBrand(String brand) {
+        return lookup(productsByBrand, brand);
+    }
+
+    public List<ProductDto> filter(Predicate<ProductDto> predicate) {
+        return filter(products.values(), predicate);
+    }
+
+    public static List<ProductDto> filter(Collection<ProductDto> products, Predicate<ProductDto> predicate) {
+        return products.stream().filter(predicate).toList();
+    }
+
+    private static List<ProductDto> lookup(Map<String, List<ProductDto>> index, String key) {
+        if (key == null) {
+            return List.of();
+        }
+        return index.getOrDefault(normalize(key), List.of());
+    }
+
+    private long lastId() {
+        long last = Long.MIN_VALUE;
+        for (Long id : products.keySet()) {
+            last = id;
+        }
+        return last;
+    }
+
+    private static String categoryKey(ProductDto product) {
+        return product.getCategory() != null ? product.getCategory().getName() : null;
+    }
+
+    // Shallow copy of the index where only the lists of the previous and the new key are rebuilt
+    private static Map<String, List<ProductDto>> patchGroup(Map<String, List<ProductDto>> index, ProductDto previous,
+                                                            ProductDto product, Function<ProductDto, String> keyExtractor) {
+        Map<String, List<ProductDto>> copy = new HashMap<>(index);
+        if (previous != null) {
+            String previousKey = keyExtractor.apply(previous);
+            if (previousKey != null) {
+                String key = normalize(previousKey);
+                List<ProductDto> list = copy.getOrDefault(key, List.of()).stream()
+                        .filter(p -> !p.getId().equals(previous.getId()))
+                        .toList();
+                if (list.isEmpty()) {
+                    copy.remove(key);
+                } else {
+                    copy.put(key, list);
+                }
+            }
+        }
+        if (product != null) {
+            String productKey = keyExtractor.apply(product);
+            if (productKey != null) {
+                String key = normalize(productKey);
+                List<ProductDto> list = new ArrayList<>(copy.getOrDefault(key, List.of()));
+                list.removeIf(p -> p.getId().equals(product.getId()));
+                int position = 0;
+                while (position < list.size() && list.get(position).getId() < product.getId()) {
+                    position++;
+                }
+                list.add(position, product);
+                copy.put(key, List.copyOf(list));
+            }
+        }
+        return copy;
+    }
+
+    private static Map<String, List<ProductDto>> groupBy(Collection<ProductDto> products, Function<ProductDto, String> keyExtractor) {
+        Map<String, List<ProductDto>> index = new HashMap<>();
+        for (ProductDto product : products) {
+            String key = keyExtractor.apply(product);
+            if (key != null) {
+                index.computeIfAbsent(normalize(key), k -> new ArrayList<>()).add(product);
+            }
+        }
+        index.replaceAll((key, list) -> List.copyOf(list));
+        return index;
+    }
+
+    // MySQL's default collation compares names and brands case-insensitively, keep the same semantics
+    public static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,32 @@
+package com.emerbv.ecommdb.service.catalog;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.enums.ProductStatus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface ICatalogService {
+    // Snapshot management
+    CatalogSnapshot getSnapshot();
+    CatalogSnapshot rebuild();
+    Map<String, Object> getCatalogInfo();
+
+    // Conditional GET support for responses derived from the snapshot
+    String getCatalogETag();
+    long getLastModified();
+
+    // Read-only product queries served from memory
+    Optional<ProductDto> getProductById(Long id);
+    List<ProductDto> getAllProducts();
+    List<ProductDto> getProductsByCategory(String category);
+    List<ProductDto> getProductsByBrand(String brand);
+    List<ProductDto> getProductsByCategoryAndBrand(String category, String brand);
+    List<ProductDto> getProductsByBrandAndName(String brand, String name);
+    List<ProductDto> getProductsByNameContaining(String name);
+    List<ProductDto> getProductsByStatus(ProductStatus status);
+    List<ProductDto> getRecentProducts();
+    List<ProductDto> getPreOrderProducts();
+    List<ProductDto> getPreOrderProductsByStatus(ProductStatus status);
+}
@@ -0,0 +1,23 @@
+package com.emerbv.ecommdb.service.catalog;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a product, its variants or its images are written,
+ * so in-memory read models can patch themselves once the change is committed.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+    private final Long productId;
+    private final boolean deleted;
+
+    public static ProductChangedEvent updated(Long productId) {
+        return new ProductChangedEvent(productId, false);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, true);
+    }
+}
@@ -0,0 +1,16 @@
+package com.emerbv.ecommdb.service.catalog;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Published after a bulk deletion, so the catalog snapshot drops all the products
+ * in a single patch instead of one copy per product.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductsDeletedEvent {
+    private final List<Long> productIds;
+}
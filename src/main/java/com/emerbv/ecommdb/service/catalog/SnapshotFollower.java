@@ -0,0 +1,145 @@
+package com.emerbv.ecommdb.service.catalog;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Base of the in-memory read models derived from the catalog snapshot.
+ * <p>
+ * The model is built on the first read (or the first full rebuild event), replaced by every full rebuild
+ * and patched product by product in between, always under its write lock. It remembers the version of
+ * the snapshot it reflects: patches it already contains are skipped, and patches published while it is
+ * being built wait for the lock and apply on top, so none is lost.
+ */
+public abstract class SnapshotFollower {
+    /**
+     * Order of the follower listeners: after the catalog has moved to the new snapshot and before
+     * the listeners that drop what was rendered from the models, like the response cache.
+     */
+    public static final int LISTENER_ORDER = 0;
+
+    private static final long NOT_BUILT = -1;
+
+    private final ICatalogService catalogService;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by the lock
+    private long version = NOT_BUILT;
+    private CatalogSnapshot snapshot;
+
+    protected SnapshotFollower(ICatalogService catalogService) {
+        this.catalogService = catalogService;
+    }
+
+    /**
+     * Replaces the model with one built from the given snapshot. Called with the write lock held.
+     */
+    protected abstract void rebuild(CatalogSnapshot snapshot);
+
+    /**
+     * Applies the change of a single product, {@code product} is empty when it was deleted.
+     * Called with the write lock held, only once the model is built.
+     */
+    protected abstract void apply(Long productId, Optional<ProductDto> product);
+
+    /**
+     * Subclasses forward their {@link CatalogChangedEvent} listener here.
+     */
+    protected void follow(CatalogChangedEvent event) {
+        CatalogSnapshot changed = event.getSnapshot();
+        lock.writeLock().lock();
+        try {
+            if (event.isFullRebuild()) {
+                if (changed.getVersion() > version) {
+                    rebuildFrom(changed);
+                }
+            } else if (version != NOT_BUILT && changed.getVersion() > version) {
+                apply(event.getProductId(), changed.getProduct(event.getProductId()));
+                version = changed.getVersion();
+                snapshot = changed;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs the reader under the read lock, building the model first if needed.
+     */
+    protected <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            if (version != NOT_BUILT) {
+                return reader.get();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        ensureSnapshotBuilt();
+        lock.writeLock().lock();
+        try {
+            if (version == NOT_BUILT) {
+                rebuildFrom(catalogService.getSnapshot());
+            }
+            return reader.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a change on the model under the write lock. Skipped while the model is not built,
+     * its first build reads the current state anyway.
+     */
+    protected void update(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (version != NOT_BUILT) {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the model from the current snapshot, for changes the snapshot itself does not carry.
+     */
+    protected void refresh() {
+        ensureSnapshotBuilt();
+        lock.writeLock().lock();
+        try {
+            rebuildFrom(catalogService.getSnapshot());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The snapshot the model reflects, to resolve the ids it returns. Only valid inside {@link #read} or
+     * {@link #update}: the catalog may already be ahead of the model, and the model may move on once
+     * the lock is released.
+     */
+    protected CatalogSnapshot followedSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Building the catalog snapshot publishes a full rebuild event that every follower handles under
+     * its own lock, so it must never happen while one of those locks is held. Once built, reading the
+     * snapshot is lock-free.
+     */
+    private void ensureSnapshotBuilt() {
+        catalogService.getSnapshot();
+    }
+
+    private void rebuildFrom(CatalogSnapshot built) {
+        rebuild(built);
+        version = built.getVersion();
+        snapshot = built;
+    }
+}
@@ -0,0 +1,14 @@
+package com.emerbv.ecommdb.service.category;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a category is created, renamed, deleted or gets a new image,
+ * so caches holding category listings can drop them once the change is committed.
+ */
+@Getter
+@AllArgsConstructor
+public class CategoryChangedEvent {
+    private final Long categoryId;
+}
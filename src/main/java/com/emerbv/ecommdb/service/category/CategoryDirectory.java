@@ -0,0 +1,151 @@
+package com.emerbv.ecommdb.service.category;
+
+import com.emerbv.ecommdb.dto.CategoryDto;
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.enums.ProductStatus;
+import com.emerbv.ecommdb.model.Category;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Category rows plus the product count, in-stock count and price range of each category.
+ * Product changes only recompute the categories they leave or enter, never the whole catalog.
+ * Not thread-safe, guarded by {@link CategoryDirectoryService}.
+ */
+final class CategoryDirectory {
+    private static final Stats EMPTY = new Stats(0, 0, null, null);
+
+    private static final Comparator<CategoryDto> BY_NAME =
+            Comparator.comparing(CategoryDto::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+    private final Map<Long, CategoryDto> categories = new HashMap<>();
+    private final Map<Long, Map<Long, ProductDto>> productsByCategory = new HashMap<>();
+    private final Map<Long, Long> categoryByProduct = new HashMap<>();
+    private final Map<Long, Stats> stats = new HashMap<>();
+    private List<CategoryDto> entries;
+
+    static CategoryDirectory of(List<CategoryDto> categories, Collection<ProductDto> products) {
+        CategoryDirectory directory = new CategoryDirectory();
+        categories.forEach(category -> directory.categories.put(category.getId(), category));
+        products.forEach(directory::add);
+        directory.productsByCategory.keySet().forEach(directory::refresh);
+        directory.publish();
+        return directory;
+    }
+
+    void put(ProductDto product) {
+        Long previousCategoryId = categoryByProduct.get(product.getId());
+        Long categoryId = categoryId(product);
+        if (previousCategoryId != null && !previousCategoryId.equals(categoryId)) {
+            remove(product.getId());
+        }
+        if (categoryId != null) {
+            add(product);
+            refresh(categoryId);
+        }
+        publish();
+    }
+
+    void remove(Long productId) {
+        Long categoryId = categoryByProduct.remove(productId);
+        if (categoryId == null) {
+            return;
+        }
+        Map<Long, ProductDto> products = productsByCategory.get(categoryId);
+        if (products != null) {
+            products.remove(productId);
+            if (products.isEmpty()) {
+                productsByCategory.remove(categoryId);
+            }
+        }
+        refresh(categoryId);
+        publish();
+    }
+
+    List<CategoryDto> entries() {
+        return entries;
+    }
+
+    int size() {
+        return categories.size();
+    }
+
+    private void add(ProductDto product) {
+        Long categoryId = categoryId(product);
+        if (categoryId == null) {
+            return;
+        }
+        // Categories created along with a product (addProduct, import) are not announced separately
+        categories.computeIfAbsent(categoryId, id -> toDto(product.getCategory()));
+        productsByCategory.computeIfAbsent(categoryId, id -> new HashMap<>()).put(product.getId(), product);
+        categoryByProduct.put(product.getId(), categoryId);
+    }
+
+    private void refresh(Long categoryId) {
+        Map<Long, ProductDto> products = productsByCategory.get(categoryId);
+        if (products == null || products.isEmpty()) {
+            stats.remove(categoryId);
+        } else {
+            stats.put(categoryId, Stats.of(products.values()));
+        }
+    }
+
+    private void publish() {
+        // Built under the write lock, readers only ever see a complete immutable list
+        entries = categories.values().stream()
+                .sorted(BY_NAME)
+                .map(category -> entry(category, stats.getOrDefault(category.getId(), EMPTY)))
+                .toList();
+    }
+
+    private static Long categoryId(ProductDto product) {
+        return product.getCategory() != null ? product.getCategory().getId() : null;
+    }
+
+    private static CategoryDto toDto(Category category) {
+        CategoryDto dto = new CategoryDto();
+        dto.setId(category.getId());
+        dto.setName(category.getName());
+        dto.setImageFileName(category.getImageFileName());
+        dto.setImageFileType(category.getImageFileType());
+        dto.setImageDownloadUrl(category.getImageDownloadUrl());
+        return dto;
+    }
+
+    private static CategoryDto entry(CategoryDto category, Stats stats) {
+        // Copies, the published list is shared by every request
+        CategoryDto entry = new CategoryDto();
+        entry.setId(category.getId());
+        entry.setName(category.getName());
+        entry.setImageFileName(category.getImageFileName());
+        entry.setImageFileType(category.getImageFileType());
+        entry.setImageDownloadUrl(category.getImageDownloadUrl());
+        entry.setProductCount(stats.productCount());
+        entry.setInStockCount(stats.inStockCount());
+        entry.setMinPrice(stats.minPrice());
+        entry.setMaxPrice(stats.maxPrice());
+        return entry;
+    }
+
+    private record Stats(int productCount, int inStockCount, BigDecimal minPrice, BigDecimal maxPrice) {
+
+        static Stats of(Collection<ProductDto> products) {
+            int inStock = 0;
+            BigDecimal min = null;
+            BigDecimal max = null;
+            for (ProductDto product : products) {
+                if (product.getStatus() == ProductStatus.IN_STOCK) {
+                    inStock++;
+                }
+                // Product price is already the lowest variant price
+                BigDecimal price = product.getPrice();
+                if (price != null) {
+                    min = min == null || price.compareTo(min) < 0 ? price : min;
+                    max = max == null || price.compareTo(max) > 0 ? price : max;
+                }
+            }
+            return new Stats(products.size(), inStock, min, max);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.emerbv.ecommdb.service.category;
+
+import com.emerbv.ecommdb.dto.CategoryDto;
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.repository.CategoryRepository;
+import com.emerbv.ecommdb.service.catalog.CatalogChangedEvent;
+import com.emerbv.ecommdb.service.catalog.CatalogSnapshot;
+import com.emerbv.ecommdb.service.catalog.ICatalogService;
+import com.emerbv.ecommdb.service.catalog.SnapshotFollower;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Category directory served from memory: category rows are read once, counts and price ranges
+ * follow the catalog snapshot, so listing categories never queries the product table.
+ */
+@Service
+public class CategoryDirectoryService extends SnapshotFollower implements ICategoryDirectoryService {
+    private static final Logger logger = LoggerFactory.getLogger(CategoryDirectoryService.class);
+
+    private final CategoryRepository categoryRepository;
+    private final ICategoryService categoryService;
+    private CategoryDirectory directory;
+
+    public CategoryDirectoryService(
+            CategoryRepository categoryRepository,
+            ICategoryService categoryService,
+            ICatalogService catalogService) {
+        super(catalogService);
+        this.categoryRepository = categoryRepository;
+        this.categoryService = categoryService;
+    }
+
+    @EventListener
+    @Order(LISTENER_ORDER)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        follow(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(LISTENER_ORDER)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        // Category writes are rare, the rows are simply read again. Under the follower lock, so a
+        // product patch published meanwhile waits and applies to the new directory instead of being lost
+        refresh();
+    }
+
+    @Override
+    public List<CategoryDto> getDirectory() {
+        return read(() -> directory.entries());
+    }
+
+    @Override
+    protected void rebuild(CatalogSnapshot snapshot) {
+        long start = System.currentTimeMillis();
+        List<CategoryDto> categories = categoryService.convertToDtoList(categoryRepository.findAll());
+        directory = CategoryDirectory.of(categories, snapshot.getProducts());
+        logger.info("Category directory rebuilt with {} categories in {} ms",
+                directory.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    protected void apply(Long productId, Optional<ProductDto> product) {
+        product.ifPresentOrElse(directory::put, () -> directory.remove(productId));
+    }
+}
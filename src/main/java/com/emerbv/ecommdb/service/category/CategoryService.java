@@ -5,16 +5,16 @@ import com.emerbv.ecommdb.exceptions.AlreadyExistsException;
 import com.emerbv.ecommdb.exceptions.ResourceNotFoundException;
 import com.emerbv.ecommdb.model.Category;
 import com.emerbv.ecommdb.repository.CategoryRepository;
+import com.emerbv.ecommdb.service.storage.IImageContentService;
+import com.emerbv.ecommdb.service.storage.ImageStorage;
+import com.emerbv.ecommdb.service.storage.StoredObject;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.sql.rowset.serial.SerialBlob;
-import java.io.IOException;
-import java.sql.Blob;
-import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -24,6 +24,8 @@ import java.util.stream.Collectors;
 public class CategoryService implements ICategoryService {
     private final CategoryRepository categoryRepository;
     private final ModelMapper modelMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IImageContentService imageContentService;
 
     @Override
     public Category getCategoryById(Long id) {
@@ -43,79 +45,79 @@ public class CategoryService implements ICategoryService {
 
     @Override
     public Category addCategory(Category category) {
-        return  Optional.of(category)
+        Category savedCategory = Optional.of(category)
                 .filter(c -> !categoryRepository.existsByName(c.getName()))
                 .map(categoryRepository::save)
                 .orElseThrow(() -> new AlreadyExistsException(category.getName() + " already exists"));
+        eventPublisher.publishEvent(new CategoryChangedEvent(savedCategory.getId()));
+        return savedCategory;
     }
 
     @Override
     public Category updateCategory(Category category, Long id) {
         return Optional.ofNullable(getCategoryById(id)).map(oldCategory -> {
             oldCategory.setName(category.getName());
-            return categoryRepository.save(oldCategory);
+            Category savedCategory = categoryRepository.save(oldCategory);
+            eventPublisher.publishEvent(new CategoryChangedEvent(id));
+            return savedCategory;
         }) .orElseThrow(()-> new ResourceNotFoundException("Category not found!"));
     }
 
     @Override
     public void deleteCategoryById(Long id) {
         categoryRepository.findById(id)
-                .ifPresentOrElse(categoryRepository::delete, () -> {
+                .ifPresentOrElse(category -> {
+                    categoryRepository.delete(category);
+                    imageContentService.release(category.getImageStorageKey());
+                }, () -> {
                     throw new ResourceNotFoundException("Category not found!");
                 });
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
 
     @Override
     @Transactional
     public Category uploadCategoryImage(Long categoryId, MultipartFile file) {
-        try {
-            Category category = getCategoryById(categoryId);
-
-            // Guardar la información de la imagen
-            category.setImageFileName(file.getOriginalFilename());
-            category.setImageFileType(file.getContentType());
-            category.setImage(new SerialBlob(file.getBytes()));
-
-            // Construir URL de descarga
-            String buildDownloadUrl = "/api/v1/categories/images/download/";
-            String downloadUrl = buildDownloadUrl + category.getId();
-            category.setImageDownloadUrl(downloadUrl);
-
-            return categoryRepository.save(category);
-        } catch (IOException | SQLException e) {
-            throw new RuntimeException("Error uploading category image: " + e.getMessage());
-        }
-    }
-
-    @Override
-    @Transactional(readOnly = true)
-    public byte[] getCategoryImage(Long categoryId) {
         Category category = getCategoryById(categoryId);
-        Blob imageBlob = category.getImage();
-
-        if (imageBlob == null) {
-            throw new ResourceNotFoundException("Image not found for category: " + categoryId);
-        }
-
-        try {
-            int length = (int) imageBlob.length();
-            return imageBlob.getBytes(1, length);
-        } catch (SQLException e) {
-            throw new RuntimeException("Error retrieving category image: " + e.getMessage());
-        }
+        StoredObject stored = imageContentService.store(file);
+        String previousKey = category.getImageStorageKey();
+
+        // Guardar la información de la imagen, los bytes quedan en el almacenamiento de imágenes
+        category.setImageFileName(file.getOriginalFilename());
+        category.setImageFileType(file.getContentType());
+        category.setImageStorageKey(stored.key());
+        category.setImageSize(stored.size());
+        category.setImage(null);
+
+        // Construir URL de descarga
+        String buildDownloadUrl = "/api/v1/categories/images/download/";
+        // La versión del contenido en la URL permite cachear la imagen como inmutable
+        String downloadUrl = buildDownloadUrl + category.getId() + "?v=" + ImageStorage.version(stored.key());
+        category.setImageDownloadUrl(downloadUrl);
+
+        Category savedCategory = categoryRepository.saveAndFlush(category);
+        // La nueva subida ya sumó su propia referencia, aunque el contenido sea el mismo
+        imageContentService.release(previousKey);
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+        return savedCategory;
     }
 
     @Override
     @Transactional
     public void deleteCategoryImage(Long categoryId) {
         Category category = getCategoryById(categoryId);
+        String previousKey = category.getImageStorageKey();
 
         category.setImage(null);
         category.setImageFileName(null);
         category.setImageFileType(null);
         category.setImageDownloadUrl(null);
+        category.setImageStorageKey(null);
+        category.setImageSize(null);
 
-        categoryRepository.save(category);
+        categoryRepository.saveAndFlush(category);
+        imageContentService.release(previousKey);
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
     }
 
     @Override
@@ -0,0 +1,13 @@
+package com.emerbv.ecommdb.service.category;
+
+import com.emerbv.ecommdb.dto.CategoryDto;
+
+import java.util.List;
+
+public interface ICategoryDirectoryService {
+    /**
+     * Todas las categorías con su número de productos, productos en stock y rango de precios
+     * @return Categorías ordenadas por nombre
+     */
+    List<CategoryDto> getDirectory();
+}
@@ -15,7 +15,6 @@ public interface ICategoryService {
     void deleteCategoryById(Long id);
 
     Category uploadCategoryImage(Long categoryId, MultipartFile file);
-    byte[] getCategoryImage(Long categoryId);
     void deleteCategoryImage(Long categoryId);
     CategoryDto convertToDto(Category category);
     List<CategoryDto> convertToDtoList(List<Category> categories);
@@ -0,0 +1,12 @@
+package com.emerbv.ecommdb.service.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface IProductExportService {
+    /**
+     * Writes the whole catalog to the stream, holding a single chunk of products in memory at a time
+     * @return number of exported products
+     */
+    long exportProducts(ExportFormat format, OutputStream outputStream) throws IOException;
+}
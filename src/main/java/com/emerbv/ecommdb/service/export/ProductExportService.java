@@ -0,0 +1,145 @@
+package com.emerbv.ecommdb.service.export;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.model.Product;
+import com.emerbv.ecommdb.repository.ProductRepository;
+import com.emerbv.ecommdb.service.product.IProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Streams the catalog as NDJSON or CSV.
+ * Products are read in id order, one chunk per short read-only transaction: each chunk is converted in batch,
+ * written and flushed, and its persistence context closes with the transaction, so memory stays flat
+ * whatever the catalog size and no connection is held while a slow client drains the output.
+ */
+@Service
+public class ProductExportService implements IProductExportService {
+    private static final Logger logger = LoggerFactory.getLogger(ProductExportService.class);
+
+    private static final String CSV_HEADER = "id,name,brand,category,price,inventory,status,discountPercentage,"
+            + "preOrder,salesCount,wishCount,variantCount,imageUrl,createdAt\n";
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final ProductRepository productRepository;
+    private final IProductService productService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int chunkSize;
+
+    public ProductExportService(
+            ProductRepository productRepository,
+            IProductService productService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.export.chunk-size:500}") int chunkSize) {
+        this.productRepository = productRepository;
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public long exportProducts(ExportFormat format, OutputStream outputStream) throws IOException {
+        long start = System.currentTimeMillis();
+        OutputStream out = new BufferedOutputStream(outputStream, 64 * 1024);
+        if (format == ExportFormat.CSV) {
+            out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+
+        long exported = 0;
+        Long lastId = 0L;
+        while (true) {
+            Long afterId = lastId;
+            List<ProductDto> chunk = readOnlyTransaction.execute(status -> readChunk(afterId));
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+
+            for (ProductDto product : chunk) {
+                if (format == ExportFormat.CSV) {
+                    out.write(toCsvLine(product).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    out.write(objectMapper.writeValueAsBytes(product));
+                    out.write('\n');
+                }
+            }
+            out.flush();
+
+            exported += chunk.size();
+            lastId = chunk.get(chunk.size() - 1).getId();
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+        out.flush();
+
+        logger.info("Exported {} products as {} in {} ms", exported, format, System.currentTimeMillis() - start);
+        return exported;
+    }
+
+    private List<ProductDto> readChunk(Long afterId) {
+        // Keyset paging: every chunk is an index range scan on the primary key, no growing OFFSET
+        List<Product> products = productRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(chunkSize));
+        return productService.getConvertedProducts(products);
+    }
+
+    private String toCsvLine(ProductDto product) {
+        String imageUrl = product.getImages() == null || product.getImages().isEmpty()
+                ? null
+                : product.getImages().get(0).getDownloadUrl();
+
+        return String.join(",",
+                csv(product.getId()),
+                csvText(product.getName()),
+                csvText(product.getBrand()),
+                csvText(product.getCategory() != null ? product.getCategory().getName() : null),
+                csv(product.getPrice()),
+                csv(product.getInventory()),
+                csv(product.getStatus()),
+                csv(product.getDiscountPercentage()),
+                csv(product.isPreOrder()),
+                csv(product.getSalesCount()),
+                csv(product.getWishCount()),
+                csv(product.getVariants() != null ? product.getVariants().size() : 0),
+                csvText(imageUrl),
+                csv(product.getCreatedAt())) + "\n";
+    }
+
+    /**
+     * Free text typed by users: a leading =, +, -, @, tab or carriage return would make spreadsheets
+     * evaluate the cell as a formula, so it is prefixed with a quote and shown as plain text.
+     */
+    private static String csvText(String value) {
+        if (value != null && !value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            return csv("'" + value);
+        }
+        return csv(value);
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = Objects.toString(value);
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
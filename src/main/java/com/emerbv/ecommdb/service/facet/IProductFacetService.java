@@ -0,0 +1,16 @@
+package com.emerbv.ecommdb.service.facet;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.dto.ProductFilterDto;
+import org.springframework.data.domain.Page;
+
+import java.util.Map;
+
+public interface IProductFacetService {
+    Map<String, Object> getFacets(ProductFilterDto filterDto);
+
+    /**
+     * Page of the products matching the filter, in the order of its {@code sortBy}
+     */
+    Page<ProductDto> getFilteredProducts(ProductFilterDto filterDto);
+}
@@ -0,0 +1,266 @@
+package com.emerbv.ecommdb.service.facet;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.dto.ProductFilterDto;
+import com.emerbv.ecommdb.service.catalog.CatalogSnapshot;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Bitmap attribute index over the catalog.
+ * Every product gets a dense ordinal and each attribute value (brand, category, status, pre-order,
+ * price bucket) keeps a {@link BitSet} of the ordinals having it, so a filter selection is a handful
+ * of ANDs, each facet count is the cardinality of an intersection and the matching products are
+ * the set bits of the selection.
+ * <p>
+ * Not thread-safe: {@link ProductFacetService} guards it with a read/write lock.
+ */
+final class ProductFacetIndex {
+    static final String BRAND = "brand";
+    static final String CATEGORY = "category";
+    static final String AVAILABILITY = "availability";
+    static final String PRE_ORDER = "preOrder";
+    static final String PRICE = "price";
+
+    private static final int[] PRICE_BOUNDS = {25, 50, 100, 200, 500};
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    private Long[] productIds = new Long[64];
+    private BigDecimal[] prices = new BigDecimal[64];
+    private int nextOrdinal;
+
+    private final Dimension brands = new Dimension();
+    private final Dimension categories = new Dimension();
+    private final Dimension availability = new Dimension();
+    private final Dimension preOrder = new Dimension();
+    private final Dimension priceBuckets = new Dimension();
+
+    static ProductFacetIndex of(Collection<ProductDto> products) {
+        ProductFacetIndex index = new ProductFacetIndex();
+        products.forEach(index::put);
+        return index;
+    }
+
+    int size() {
+        return ordinals.size();
+    }
+
+    void put(ProductDto product) {
+        int ordinal = ordinals.computeIfAbsent(product.getId(), id -> allocateOrdinal());
+        live.set(ordinal);
+        productIds[ordinal] = product.getId();
+        prices[ordinal] = product.getPrice();
+
+        brands.set(ordinal, product.getBrand());
+        categories.set(ordinal, product.getCategory() != null ? product.getCategory().getName() : null);
+        availability.set(ordinal, product.getStatus() != null ? product.getStatus().name() : null);
+        preOrder.set(ordinal, String.valueOf(product.isPreOrder()));
+        priceBuckets.set(ordinal, priceBucket(product.getPrice()));
+    }
+
+    void remove(Long productId) {
+        Integer ordinal = ordinals.remove(productId);
+        if (ordinal == null) {
+            return;
+        }
+        live.clear(ordinal);
+        productIds[ordinal] = null;
+        prices[ordinal] = null;
+        brands.clear(ordinal);
+        categories.clear(ordinal);
+        availability.clear(ordinal);
+        preOrder.clear(ordinal);
+        priceBuckets.clear(ordinal);
+        freeOrdinals.push(ordinal);
+    }
+
+    /**
+     * Counts per value of every facet for the given selection.
+     * Counts of a facet ignore the selection on that same facet, so the UI can show how many
+     * products each alternative value would return.
+     */
+    Map<String, Object> facets(ProductFilterDto filterDto) {
+        BitSet brandMask = brandMask(filterDto);
+        BitSet categoryMask = categoryMask(filterDto);
+        BitSet availabilityMask = availabilityMask(filterDto);
+        BitSet priceMask = priceMask(filterDto);
+
+        BitSet selected = intersect(brandMask, categoryMask, availabilityMask, priceMask);
+
+        Map<String, Object> facets = new LinkedHashMap<>();
+        facets.put("total", selected.cardinality());
+        facets.put(BRAND, brands.counts(intersect(categoryMask, availabilityMask, priceMask)));
+        facets.put(CATEGORY, categories.counts(intersect(brandMask, availabilityMask, priceMask)));
+        facets.put(AVAILABILITY, availability.counts(intersect(brandMask, categoryMask, priceMask)));
+        facets.put(PRE_ORDER, preOrder.counts(selected));
+        facets.put(PRICE, priceBuckets.countsInOrder(intersect(brandMask, categoryMask, availabilityMask), priceBucketLabels()));
+        return facets;
+    }
+
+    /**
+     * Ids of the products matching the whole selection, in no particular order.
+     */
+    List<Long> matching(ProductFilterDto filterDto) {
+        BitSet selected = intersect(brandMask(filterDto), categoryMask(filterDto),
+                availabilityMask(filterDto), priceMask(filterDto));
+        List<Long> result = new ArrayList<>(selected.cardinality());
+        for (int ordinal = selected.nextSetBit(0); ordinal >= 0; ordinal = selected.nextSetBit(ordinal + 1)) {
+            result.add(productIds[ordinal]);
+        }
+        return result;
+    }
+
+    // A null mask means the facet is not part of the selection
+    private BitSet brandMask(ProductFilterDto filterDto) {
+        return filterDto.getBrand() != null ? brands.matching(filterDto.getBrand()) : null;
+    }
+
+    private BitSet categoryMask(ProductFilterDto filterDto) {
+        return filterDto.getCategory() != null ? categories.matching(filterDto.getCategory()) : null;
+    }
+
+    private BitSet availabilityMask(ProductFilterDto filterDto) {
+        return filterDto.getAvailability() != null ? availability.matching(filterDto.getAvailability().name()) : null;
+    }
+
+    private BitSet priceMask(ProductFilterDto filterDto) {
+        return filterDto.getMinPrice() != null || filterDto.getMaxPrice() != null
+                ? priceRange(filterDto.getMinPrice(), filterDto.getMaxPrice())
+                : null;
+    }
+
+    private BitSet intersect(BitSet... masks) {
+        BitSet result = (BitSet) live.clone();
+        for (BitSet mask : masks) {
+            if (mask != null) {
+                result.and(mask);
+            }
+        }
+        return result;
+    }
+
+    private BitSet priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+        BitSet result = new BitSet();
+        for (int ordinal = live.nextSetBit(0); ordinal >= 0; ordinal = live.nextSetBit(ordinal + 1)) {
+            BigDecimal price = prices[ordinal];
+            if (price != null
+                    && (minPrice == null || price.compareTo(minPrice) >= 0)
+                    && (maxPrice == null || price.compareTo(maxPrice) <= 0)) {
+                result.set(ordinal);
+            }
+        }
+        return result;
+    }
+
+    private int allocateOrdinal() {
+        // Reusing freed ordinals keeps the bitmaps dense after deletions
+        if (!freeOrdinals.isEmpty()) {
+            return freeOrdinals.pop();
+        }
+        int ordinal = nextOrdinal++;
+        if (ordinal >= prices.length) {
+            productIds = Arrays.copyOf(productIds, productIds.length * 2);
+            prices = Arrays.copyOf(prices, prices.length * 2);
+        }
+        return ordinal;
+    }
+
+    static String priceBucket(BigDecimal price) {
+        if (price == null) {
+            return null;
+        }
+        int lower = 0;
+        for (int bound : PRICE_BOUNDS) {
+            if (price.compareTo(BigDecimal.valueOf(bound)) < 0) {
+                return lower + "-" + bound;
+            }
+            lower = bound;
+        }
+        return lower + "+";
+    }
+
+    private static List<String> priceBucketLabels() {
+        List<String> labels = new ArrayList<>();
+        int lower = 0;
+        for (int bound : PRICE_BOUNDS) {
+            labels.add(lower + "-" + bound);
+            lower = bound;
+        }
+        labels.add(lower + "+");
+        return labels;
+    }
+
+    /**
+     * One attribute: a bitmap per value plus the value of each ordinal, so a product can be moved
+     * out of its previous value when it changes
+     */
+    private static final class Dimension {
+        private final Map<String, BitSet> bitsByKey = new HashMap<>();
+        private final Map<String, String> labelsByKey = new HashMap<>();
+        private final Map<Integer, String> keysByOrdinal = new HashMap<>();
+
+        void set(int ordinal, String label) {
+            clear(ordinal);
+            if (label == null) {
+                return;
+            }
+            // Same case-insensitive matching as the catalog and the database collation
+            String key = CatalogSnapshot.normalize(label);
+            bitsByKey.computeIfAbsent(key, k -> new BitSet()).set(ordinal);
+            labelsByKey.putIfAbsent(key, label);
+            keysByOrdinal.put(ordinal, key);
+        }
+
+        void clear(int ordinal) {
+            String key = keysByOrdinal.remove(ordinal);
+            if (key == null) {
+                return;
+            }
+            BitSet bits = bitsByKey.get(key);
+            bits.clear(ordinal);
+            if (bits.isEmpty()) {
+                bitsByKey.remove(key);
+                labelsByKey.remove(key);
+            }
+        }
+
+        BitSet matching(String label) {
+            BitSet bits = bitsByKey.get(CatalogSnapshot.normalize(label));
+            return bits != null ? bits : new BitSet();
+        }
+
+        Map<String, Integer> counts(BitSet mask) {
+            List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+            bitsByKey.forEach((key, bits) -> {
+                int count = cardinality(bits, mask);
+                if (count > 0) {
+                    counts.add(Map.entry(labelsByKey.get(key), count));
+                }
+            });
+            counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+
+            Map<String, Integer> result = new LinkedHashMap<>();
+            counts.forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+            return result;
+        }
+
+        Map<String, Integer> countsInOrder(BitSet mask, List<String> labels) {
+            Map<String, Integer> result = new LinkedHashMap<>();
+            for (String label : labels) {
+                BitSet bits = bitsByKey.get(CatalogSnapshot.normalize(label));
+                result.put(label, bits != null ? cardinality(bits, mask) : 0);
+            }
+            return result;
+        }
+
+        private static int cardinality(BitSet bits, BitSet mask) {
+            BitSet intersection = (BitSet) bits.clone();
+            intersection.and(mask);
+            return intersection.cardinality();
+        }
+    }
+}
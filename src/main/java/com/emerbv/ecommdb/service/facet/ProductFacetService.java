@@ -0,0 +1,83 @@
+package com.emerbv.ecommdb.service.facet;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.dto.ProductFilterDto;
+import com.emerbv.ecommdb.service.catalog.CatalogChangedEvent;
+import com.emerbv.ecommdb.service.catalog.CatalogSnapshot;
+import com.emerbv.ecommdb.service.catalog.ICatalogService;
+import com.emerbv.ecommdb.service.catalog.SnapshotFollower;
+import com.emerbv.ecommdb.service.product.ProductSortOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Product filter served from memory: a bitmap index that follows the catalog snapshot resolves the
+ * matching products and their facet counts, the page itself is read from the snapshot.
+ */
+@Service
+public class ProductFacetService extends SnapshotFollower implements IProductFacetService {
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetService.class);
+
+    private ProductFacetIndex index;
+
+    public ProductFacetService(ICatalogService catalogService) {
+        super(catalogService);
+    }
+
+    @EventListener
+    @Order(LISTENER_ORDER)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        follow(event);
+    }
+
+    @Override
+    public Map<String, Object> getFacets(ProductFilterDto filterDto) {
+        return read(() -> index.facets(filterDto));
+    }
+
+    @Override
+    public Page<ProductDto> getFilteredProducts(ProductFilterDto filterDto) {
+        // The ids are resolved against the snapshot the index reflects, under the same lock
+        List<ProductDto> matching = read(() -> {
+            CatalogSnapshot snapshot = followedSnapshot();
+            return index.matching(filterDto).stream()
+                    .map(snapshot::getProduct)
+                    .flatMap(Optional::stream)
+                    .toList();
+        });
+
+        // Only the matching products are sorted, no count query and no row is read beyond the page
+        List<ProductDto> products = matching.stream()
+                .sorted(ProductSortOrder.of(filterDto.getSortBy()).comparator())
+                .toList();
+
+        PageRequest pageable = PageRequest.of(filterDto.getPage(), filterDto.getSize());
+        int from = (int) Math.min(pageable.getOffset(), products.size());
+        int to = Math.min(from + pageable.getPageSize(), products.size());
+        return new PageImpl<>(products.subList(from, to), pageable, products.size());
+    }
+
+    @Override
+    protected void rebuild(CatalogSnapshot snapshot) {
+        long start = System.currentTimeMillis();
+        index = ProductFacetIndex.of(snapshot.getProducts());
+        logger.info("Product facet index rebuilt with {} products in {} ms",
+                index.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    protected void apply(Long productId, Optional<ProductDto> product) {
+        // Moves the product between the bitmaps of its old and new values, its ordinal is kept
+        product.ifPresentOrElse(index::put, () -> index.remove(productId));
+    }
+}
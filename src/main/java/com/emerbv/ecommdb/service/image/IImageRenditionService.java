@@ -0,0 +1,9 @@
+package com.emerbv.ecommdb.service.image;
+
+public interface IImageRenditionService {
+    /**
+     * Encola la generación de las versiones redimensionadas de la imagen
+     * @param imageId ID de la imagen
+     */
+    void requestRenditions(Long imageId);
+}
@@ -1,6 +1,6 @@
 package com.emerbv.ecommdb.service.image;
 
-import com.emerbv.ecommdb.dto.ImageDto;
+import com.emerbv.ecommdb.dto.ImageUploadResultDto;
 import com.emerbv.ecommdb.model.Image;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -8,7 +8,8 @@ import java.util.List;
 
 public interface IImageService {
     Image getImageById(Long id);
+    Image getImageWithRenditions(Long id);
     void deleteImageById(Long id);
-    List<ImageDto> saveImages(Long productId, List<MultipartFile> files);
+    List<ImageUploadResultDto> saveImages(Long productId, List<MultipartFile> files);
     void updateImage(MultipartFile file,  Long imageId);
 }
@@ -0,0 +1,51 @@
+package com.emerbv.ecommdb.service.image;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configuración del procesamiento de imágenes en segundo plano
+ */
+@Configuration
+public class ImageProcessingConfig {
+
+    /**
+     * Executor acotado para generar las versiones redimensionadas: decodificar imágenes
+     * consume CPU y memoria, pocos hilos y una cola limitada evitan saturar el servidor
+     */
+    @Bean(name = "imageTaskExecutor")
+    public TaskExecutor imageTaskExecutor(
+            @Value("${app.images.renditions.threads:2}") int threads,
+            @Value("${app.images.renditions.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ImageRendition-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Executor para copiar al almacenamiento los ficheros de una misma subida en paralelo.
+     * Si la cola se llena, el hilo de la petición copia el fichero él mismo
+     */
+    @Bean(name = "imageUploadExecutor")
+    public TaskExecutor imageUploadExecutor(
+            @Value("${app.images.upload.threads:4}") int threads,
+            @Value("${app.images.upload.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("ImageUpload-");
+        executor.initialize();
+        return executor;
+    }
+}
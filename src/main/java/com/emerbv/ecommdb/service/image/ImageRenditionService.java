@@ -0,0 +1,222 @@
+package com.emerbv.ecommdb.service.image;
+
+import com.emerbv.ecommdb.enums.ImageSize;
+import com.emerbv.ecommdb.model.Image;
+import com.emerbv.ecommdb.model.ImageRendition;
+import com.emerbv.ecommdb.repository.ImageRepository;
+import com.emerbv.ecommdb.service.storage.IImageContentService;
+import com.emerbv.ecommdb.service.storage.ImageStorage;
+import com.emerbv.ecommdb.service.storage.StoredObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates the {@link ImageSize} renditions of product images on a bounded worker pool, so product grids
+ * can download a thumbnail instead of the original. Renditions are only recorded if the original
+ * was not replaced while they were being generated.
+ */
+@Service
+public class ImageRenditionService implements IImageRenditionService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageRenditionService.class);
+
+    private static final float JPEG_QUALITY = 0.85f;
+    // Huge originals are decoded subsampled, twice the largest rendition is enough for a good downscale
+    private static final int MAX_DECODE_WIDTH = ImageSize.LARGE.getWidth() * 2;
+
+    private final ImageRepository imageRepository;
+    private final ImageStorage imageStorage;
+    private final IImageContentService imageContentService;
+    private final TaskExecutor imageTaskExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    public ImageRenditionService(
+            ImageRepository imageRepository,
+            ImageStorage imageStorage,
+            IImageContentService imageContentService,
+            @Qualifier("imageTaskExecutor") TaskExecutor imageTaskExecutor,
+            PlatformTransactionManager transactionManager) {
+        this.imageRepository = imageRepository;
+        this.imageStorage = imageStorage;
+        this.imageContentService = imageContentService;
+        this.imageTaskExecutor = imageTaskExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImageStored(ImageStoredEvent event) {
+        requestRenditions(event.getImageId());
+    }
+
+    @Override
+    public void requestRenditions(Long imageId) {
+        if (!pending.add(imageId)) {
+            return;
+        }
+        try {
+            imageTaskExecutor.execute(() -> {
+                try {
+                    generateRenditions(imageId);
+                } catch (Exception e) {
+                    logger.error("Could not generate renditions for image {}: {}", imageId, e.getMessage(), e);
+                } finally {
+                    pending.remove(imageId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // Queue full: the download keeps serving the original, renditions are requested again on demand
+            pending.remove(imageId);
+            logger.warn("Rendition queue full, image {} skipped", imageId);
+        }
+    }
+
+    private void generateRenditions(Long imageId) throws IOException {
+        Image image = imageRepository.findById(imageId).orElse(null);
+        if (image == null || image.getStorageKey() == null) {
+            return;
+        }
+        String originalKey = image.getStorageKey();
+
+        BufferedImage source = read(originalKey);
+        if (source == null) {
+            logger.info("Image {} ({}) cannot be decoded, no renditions generated", imageId, image.getFileType());
+            return;
+        }
+
+        List<ImageRendition> renditions = new ArrayList<>();
+        try {
+            for (ImageSize size : ImageSize.values()) {
+                if (size.getWidth() >= source.getWidth()) {
+                    // Never upscale, the original already fits
+                    long originalSize = image.getFileSize() != null ? image.getFileSize() : 0;
+                    imageContentService.acquire(new StoredObject(originalKey, originalSize));
+                    renditions.add(new ImageRendition(size, source.getWidth(), source.getHeight(),
+                            originalKey, originalSize, image.getFileType()));
+                    continue;
+                }
+                BufferedImage resized = resize(source, size.getWidth());
+                boolean alpha = resized.getColorModel().hasAlpha();
+                byte[] encoded = alpha ? encodePng(resized) : encodeJpeg(resized);
+                StoredObject stored = imageContentService.store(new ByteArrayResource(encoded));
+                renditions.add(new ImageRendition(size, resized.getWidth(), resized.getHeight(),
+                        stored.key(), stored.size(), alpha ? "image/png" : "image/jpeg"));
+            }
+        } catch (IOException | RuntimeException e) {
+            // References taken for the renditions done so far are given back
+            renditions.forEach(rendition -> imageContentService.release(rendition.getStorageKey()));
+            throw e;
+        }
+
+        List<String> released = transactionTemplate.execute(status -> {
+            Image current = imageRepository.findWithRenditionsById(imageId).orElse(null);
+            if (current == null || !originalKey.equals(current.getStorageKey())) {
+                // Deleted or replaced meanwhile, the new content has its own request
+                return renditions.stream().map(ImageRendition::getStorageKey).toList();
+            }
+            List<String> previous = current.getRenditions().stream().map(ImageRendition::getStorageKey).toList();
+            current.getRenditions().clear();
+            current.getRenditions().addAll(renditions);
+            return previous;
+        });
+        if (released != null) {
+            released.forEach(imageContentService::release);
+        }
+        logger.debug("Generated {} renditions for image {}", renditions.size(), imageId);
+    }
+
+    private BufferedImage read(String key) throws IOException {
+        try (InputStream content = imageStorage.open(key);
+             ImageInputStream input = ImageIO.createImageInputStream(content)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, reader.getWidth(0) / MAX_DECODE_WIDTH);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage resize(BufferedImage source, int targetWidth) {
+        int targetHeight = Math.max(1, Math.round((float) source.getHeight() * targetWidth / source.getWidth()));
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        // Halving steps with bilinear filtering, a single big bilinear step would skip most source pixels
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -1,26 +1,52 @@
 package com.emerbv.ecommdb.service.image;
 
 import com.emerbv.ecommdb.dto.ImageDto;
+import com.emerbv.ecommdb.dto.ImageUploadResultDto;
 import com.emerbv.ecommdb.exceptions.ResourceNotFoundException;
 import com.emerbv.ecommdb.model.Image;
+import com.emerbv.ecommdb.model.ImageRendition;
 import com.emerbv.ecommdb.model.Product;
 import com.emerbv.ecommdb.repository.ImageRepository;
 import com.emerbv.ecommdb.repository.ProductRepository;
-import lombok.RequiredArgsConstructor;
+import com.emerbv.ecommdb.service.catalog.ProductChangedEvent;
+import com.emerbv.ecommdb.service.storage.IImageContentService;
+import com.emerbv.ecommdb.service.storage.StoredObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.sql.rowset.serial.SerialBlob;
-import java.io.IOException;
-import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
-@RequiredArgsConstructor
 public class ImageService implements IImageService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageService.class);
+
     private final ImageRepository imageRepository;
     private final ProductRepository productRepository;
+    private final IImageContentService imageContentService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskExecutor imageUploadExecutor;
+
+    public ImageService(
+            ImageRepository imageRepository,
+            ProductRepository productRepository,
+            IImageContentService imageContentService,
+            ApplicationEventPublisher eventPublisher,
+            @Qualifier("imageUploadExecutor") TaskExecutor imageUploadExecutor) {
+        this.imageRepository = imageRepository;
+        this.productRepository = productRepository;
+        this.imageContentService = imageContentService;
+        this.eventPublisher = eventPublisher;
+        this.imageUploadExecutor = imageUploadExecutor;
+    }
 
     @Override
     public Image getImageById(Long id) {
@@ -28,57 +54,123 @@ public class ImageService implements IImageService {
                 .orElseThrow(() -> new ResourceNotFoundException("Image not found with id: " + id));
     }
 
+    @Override
+    public Image getImageWithRenditions(Long id) {
+        return imageRepository.findWithRenditionsById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Image not found with id: " + id));
+    }
+
     @Override
     public void deleteImageById(Long id) {
-        if (!imageRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Image not found with id: " + id);
-        }
-        imageRepository.deleteById(id);
+        Image image = getImageWithRenditions(id);
+        List<String> renditionKeys = renditionKeys(image);
+        imageRepository.delete(image);
+        imageContentService.release(image.getStorageKey());
+        renditionKeys.forEach(imageContentService::release);
+        touchProduct(image.getProduct());
     }
 
     @Override
-    public List<ImageDto> saveImages(Long productId, List<MultipartFile> files) {
+    public List<ImageUploadResultDto> saveImages(Long productId, List<MultipartFile> files) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
 
-        List<ImageDto> savedImages = new ArrayList<>();
-        for (MultipartFile file : files) {
+        // Every part is streamed from its multipart temp file to the storage on its own thread
+        List<CompletableFuture<StoredObject>> uploads = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> storeFile(file), imageUploadExecutor))
+                .toList();
+
+        List<ImageUploadResultDto> results = new ArrayList<>(files.size());
+        List<ImageUploadResultDto> storedResults = new ArrayList<>();
+        List<Image> images = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            ImageUploadResultDto result = new ImageUploadResultDto();
+            result.setFileName(file.getOriginalFilename());
+            results.add(result);
             try {
+                StoredObject stored = uploads.get(i).join();
+
                 Image image = new Image();
                 image.setFileName(file.getOriginalFilename());
                 image.setFileType(file.getContentType());
-                image.setImage(new SerialBlob(file.getBytes()));
+                image.setStorageKey(stored.key());
+                image.setFileSize(stored.size());
                 image.setProduct(product);
-
-                String downloadUrl = "/api/v1/images/image/download/" + image.getId();
-                image.setDownloadUrl(downloadUrl);
-                
-                Image savedImage = imageRepository.save(image);
-                savedImage.setDownloadUrl("/api/v1/images/image/download/" + savedImage.getId());
-                savedImage = imageRepository.save(savedImage);
-
-                ImageDto imageDto = new ImageDto();
-                imageDto.setId(savedImage.getId());
-                imageDto.setFileName(savedImage.getFileName());
-                imageDto.setDownloadUrl(savedImage.getDownloadUrl());
-                savedImages.add(imageDto);
-            } catch (IOException | SQLException e) {
-                throw new RuntimeException("Could not store the file. Error: " + e.getMessage());
+                images.add(image);
+                storedResults.add(result);
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                logger.warn("Could not store image {} for product {}: {}",
+                        file.getOriginalFilename(), productId, cause.getMessage());
+                result.setError(cause.getMessage());
             }
         }
-        return savedImages;
+        if (images.isEmpty()) {
+            return results;
+        }
+
+        List<Image> savedImages;
+        try {
+            savedImages = imageRepository.saveAll(images);
+        } catch (RuntimeException e) {
+            images.forEach(image -> imageContentService.release(image.getStorageKey()));
+            throw e;
+        }
+        for (int i = 0; i < savedImages.size(); i++) {
+            Image savedImage = savedImages.get(i);
+            eventPublisher.publishEvent(new ImageStoredEvent(savedImage.getId()));
+
+            ImageDto imageDto = new ImageDto();
+            imageDto.setId(savedImage.getId());
+            imageDto.setFileName(savedImage.getFileName());
+            imageDto.setDownloadUrl(savedImage.getDownloadUrl());
+            storedResults.get(i).setImage(imageDto);
+        }
+        touchProduct(product);
+        return results;
+    }
+
+    private StoredObject storeFile(MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        return imageContentService.store(file);
     }
 
     @Override
     public void updateImage(MultipartFile file, Long imageId) {
-        Image image = getImageById(imageId);
-        try {
-            image.setFileName(file.getOriginalFilename());
-            image.setFileType(file.getContentType());
-            image.setImage(new SerialBlob(file.getBytes()));
-            imageRepository.save(image);
-        } catch (IOException | SQLException e) {
-            throw new RuntimeException("Could not store the file. Error: " + e.getMessage());
+        Image image = getImageWithRenditions(imageId);
+        StoredObject stored = imageContentService.store(file);
+        String previousKey = image.getStorageKey();
+        List<String> previousRenditionKeys = renditionKeys(image);
+
+        image.setFileName(file.getOriginalFilename());
+        image.setFileType(file.getContentType());
+        image.setStorageKey(stored.key());
+        image.setFileSize(stored.size());
+        image.setImage(null);
+        // The old renditions no longer match, downloads use the original until the new ones are ready
+        image.getRenditions().clear();
+        imageRepository.save(image);
+
+        // The new upload holds its own reference, even when the content is the same
+        imageContentService.release(previousKey);
+        previousRenditionKeys.forEach(imageContentService::release);
+        eventPublisher.publishEvent(new ImageStoredEvent(imageId));
+        touchProduct(image.getProduct());
+    }
+
+    private static List<String> renditionKeys(Image image) {
+        return image.getRenditions().stream().map(ImageRendition::getStorageKey).toList();
+    }
+
+    private void touchProduct(Product product) {
+        if (product != null) {
+            // Images are part of the product detail, a new version invalidates client ETags.
+            // Bumped in place, the product read before the uploads may be stale by now
+            productRepository.markModified(product.getId(), LocalDateTime.now());
+            eventPublisher.publishEvent(ProductChangedEvent.updated(product.getId()));
         }
     }
 }
@@ -0,0 +1,13 @@
+package com.emerbv.ecommdb.service.image;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when an image gets new content (upload or update), renditions are generated once it is committed.
+ */
+@Getter
+@AllArgsConstructor
+public class ImageStoredEvent {
+    private final Long imageId;
+}
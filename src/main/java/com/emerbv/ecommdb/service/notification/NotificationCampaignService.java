@@ -3,17 +3,18 @@ package com.emerbv.ecommdb.service.notification;
 import com.emerbv.ecommdb.dto.CartDto;
 import com.emerbv.ecommdb.dto.ProductDto;
 import com.emerbv.ecommdb.enums.NotificationType;
-import com.emerbv.ecommdb.model.Cart;
 import com.emerbv.ecommdb.model.Product;
 import com.emerbv.ecommdb.model.User;
 import com.emerbv.ecommdb.repository.CartRepository;
 import com.emerbv.ecommdb.repository.ProductRepository;
 import com.emerbv.ecommdb.repository.UserRepository;
 import com.emerbv.ecommdb.service.cart.ICartService;
-import com.emerbv.ecommdb.service.product.IProductService;
+import com.emerbv.ecommdb.service.ranking.IProductRankingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -35,9 +36,24 @@ public class NotificationCampaignService {
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
     private final ICartService cartService;
-    private final IProductService productService;
+    private final IProductRankingService rankingService;
     private final NotificationPreferenceService preferenceService;
 
+    @Value("${notification.campaign.cart-abandoned.delay-hours:24}")
+    private int cartAbandonedDelayHours;
+
+    @Value("${notification.campaign.cart-abandoned.max-age-hours:72}")
+    private int cartAbandonedMaxAgeHours;
+
+    @Value("${notification.campaign.cart-abandoned.max-attempts:2}")
+    private int cartAbandonedMaxAttempts;
+
+    @Value("${notification.campaign.cart-abandoned.min-cart-value:0}")
+    private BigDecimal cartAbandonedMinCartValue;
+
+    @Value("${notification.campaign.cart-abandoned.page-size:200}")
+    private int cartAbandonedPageSize;
+
     @Autowired
     public NotificationCampaignService(
             INotificationService notificationService,
@@ -45,14 +61,14 @@ public class NotificationCampaignService {
             UserRepository userRepository,
             ProductRepository productRepository,
             ICartService cartService,
-            IProductService productService,
+            IProductRankingService rankingService,
             NotificationPreferenceService preferenceService) {
         this.notificationService = notificationService;
         this.cartRepository = cartRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.cartService = cartService;
-        this.productService = productService;
+        this.rankingService = rankingService;
         this.preferenceService = preferenceService;
     }
 
@@ -65,103 +81,130 @@ public class NotificationCampaignService {
     public void sendAbandonedCartNotifications() {
         logger.info("Iniciando proceso de notificaciones de carritos abandonados");
 
-        // Obtener carritos con items que no han tenido actividad en las últimas 24 horas
-        // pero menos de 72 horas (para no spam)
-        LocalDateTime cutoffStart = LocalDateTime.now().minusHours(72);
-        LocalDateTime cutoffEnd = LocalDateTime.now().minusHours(24);
-
-        List<Cart> abandonedCarts = cartRepository.findAll().stream()
-                .filter(cart -> !cart.getItems().isEmpty())
-                .filter(cart -> {
-                    // Filtrar por última actividad - este campo debería añadirse a la entidad Cart
-                    // Por ahora usamos updatedAt si existe en la entidad Auditable
-                    return true; // Modificar con la lógica real
-                })
-                .collect(Collectors.toList());
-
-        logger.info("Se encontraron {} carritos abandonados", abandonedCarts.size());
-
-        for (Cart cart : abandonedCarts) {
-            try {
-                User user = cart.getUser();
-
-                // Verificar si el usuario existe y tiene email
-                if (user == null || user.getEmail() == null || user.getEmail().isEmpty()) {
-                    continue;
+        // Carritos con items sin actividad desde hace delay-hours, pero no más de max-age-hours (para no spam).
+        // Cada carrito recibe como mucho max-attempts recordatorios, separados al menos delay-hours
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoffStart = now.minusHours(cartAbandonedMaxAgeHours);
+        LocalDateTime cutoffEnd = now.minusHours(cartAbandonedDelayHours);
+
+        int abandonedCount = 0;
+        LocalDateTime afterActivity = cutoffStart;
+        long afterId = 0L;
+        List<CartRepository.AbandonedCartView> page;
+        do {
+            // Solo se leen los carritos de la ventana, por páginas de (última actividad, id) sobre su índice
+            page = cartRepository.findAbandonedCarts(afterActivity, afterId, cutoffEnd, cartAbandonedMaxAttempts,
+                    cutoffEnd, cartAbandonedMinCartValue, false, Limit.of(cartAbandonedPageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            CartRepository.AbandonedCartView last = page.get(page.size() - 1);
+            afterActivity = last.getLastActivityAt();
+            afterId = last.getCartId();
+            abandonedCount += page.size();
+
+            // Líneas, productos y primera imagen de la página en una sola consulta de lectura
+            Map<Long, CartDto> cartViews = cartService.getCartViews(
+                    page.stream().map(CartRepository.AbandonedCartView::getCartId).toList());
+            Map<Long, User> users = userRepository.findAllById(
+                    page.stream().map(CartRepository.AbandonedCartView::getUserId).toList()).stream()
+                    .collect(Collectors.toMap(User::getId, user -> user));
+
+            List<Long> reminded = new ArrayList<>();
+            for (CartRepository.AbandonedCartView abandoned : page) {
+                if (sendAbandonedCartNotification(abandoned.getCartId(), users.get(abandoned.getUserId()),
+                        cartViews.get(abandoned.getCartId()))) {
+                    reminded.add(abandoned.getCartId());
                 }
+            }
+            // Se anotan en el carrito para que ninguno de los dos procesos lo vuelva a recordar antes de tiempo
+            if (!reminded.isEmpty()) {
+                cartRepository.markReminded(reminded, now);
+            }
+        } while (page.size() == cartAbandonedPageSize);
 
-                // Generar URL con token seguro para recuperar el carrito
-                String cartRecoveryUrl = generateCartRecoveryUrl(cart.getId(), user.getId());
-
-                // Preparar la notificación
-                Map<String, Object> variables = new HashMap<>();
-                
-                // Variables básicas
-                variables.put("userName", user.getFirstName());
-                variables.put("cartItems", cart.getItems().stream()
-                    .map(item -> {
-                        Map<String, Object> itemMap = new HashMap<>();
-                        Map<String, Object> productMap = new HashMap<>();
-                        productMap.put("name", item.getProduct().getName());
-                        productMap.put("images", item.getProduct().getImages().stream()
-                            .map(image -> {
-                                Map<String, String> imageMap = new HashMap<>();
-                                imageMap.put("downloadUrl", image.getDownloadUrl());
-                                return imageMap;
-                            })
-                            .toList());
-                        itemMap.put("product", productMap);
-                        itemMap.put("variantName", item.getVariantName());
-                        itemMap.put("quantity", item.getQuantity());
-                        itemMap.put("totalPrice", item.getTotalPrice());
-                        return itemMap;
-                    })
-                    .toList());
-                variables.put("totalAmount", cart.getTotalAmount());
-                variables.put("cartRecoveryUrl", cartRecoveryUrl);
-
-                // Añadir una oferta especial si queremos incentivar la compra
-                boolean hasSpecialOffer = new Random().nextBoolean(); // 50% de probabilidad
-                if (hasSpecialOffer) {
-                    variables.put("hasSpecialOffer", true);
-                    variables.put("discountPercentage", 10);
-                    variables.put("discountCode", "VUELVE10");
-                }
+        logger.info("Proceso de notificaciones de carritos abandonados completado: {} carritos abandonados", abandonedCount);
+    }
 
-                // Información de la tienda
-                variables.put("storeName", "APPECOMM");
-                variables.put("storeEmail", "support@appecomm.com");
-                variables.put("storePhone", "+34 123 456 789");
-                variables.put("year", java.time.Year.now().getValue());
-
-                // Enlaces sociales
-                Map<String, String> socialLinks = new HashMap<>();
-                socialLinks.put("facebook", "https://facebook.com/appecomm");
-                socialLinks.put("instagram", "https://instagram.com/appecomm");
-                socialLinks.put("twitter", "https://twitter.com/appecomm");
-                variables.put("socialLinks", socialLinks);
-
-                // URL de cancelación de suscripción
-                String unsubscribeToken = preferenceService.generateUnsubscribeToken(user.getId(), "CART");
-                variables.put("unsubscribeUrl", "https://appecomm.com/notifications/unsubscribe?token=" + unsubscribeToken);
-
-                // Enviar la notificación
-                notificationService.sendUserNotification(
-                        user,
-                        NotificationType.CART_ABANDONED,
-                        "¿Olvidaste algo en tu carrito?",
-                        user.getPreferredLanguage(),
-                        variables
-                );
-
-                logger.info("Notificación de carrito abandonado enviada a usuario: {}", user.getEmail());
+    private boolean sendAbandonedCartNotification(Long cartId, User user, CartDto cartView) {
+        try {
+            // Verificar si el usuario existe y tiene email
+            if (user == null || user.getEmail() == null || user.getEmail().isEmpty() || cartView == null) {
+                return false;
+            }
 
-            } catch (Exception e) {
-                logger.error("Error procesando carrito abandonado {}: {}", cart.getId(), e.getMessage(), e);
+            // Generar URL con token seguro para recuperar el carrito
+            String cartRecoveryUrl = generateCartRecoveryUrl(cartId, user.getId());
+
+            // Preparar la notificación
+            Map<String, Object> variables = new HashMap<>();
+            
+            // Variables básicas
+            variables.put("userName", user.getFirstName());
+            variables.put("cartItems", cartView.getItems().stream()
+                .filter(item -> item.getProduct() != null)
+                .map(item -> {
+                    Map<String, Object> itemMap = new HashMap<>();
+                    Map<String, Object> productMap = new HashMap<>();
+                    productMap.put("name", item.getProduct().getName());
+                    productMap.put("images", item.getImages().stream()
+                        .map(image -> {
+                            Map<String, String> imageMap = new HashMap<>();
+                            imageMap.put("downloadUrl", image.getDownloadUrl());
+                            return imageMap;
+                        })
+                        .toList());
+                    itemMap.put("product", productMap);
+                    itemMap.put("variantName", item.getVariantName());
+                    itemMap.put("quantity", item.getQuantity());
+                    itemMap.put("totalPrice", item.getTotalPrice());
+                    return itemMap;
+                })
+                .toList());
+            variables.put("totalAmount", cartView.getTotalAmount());
+            variables.put("cartRecoveryUrl", cartRecoveryUrl);
+
+            // Añadir una oferta especial si queremos incentivar la compra
+            boolean hasSpecialOffer = new Random().nextBoolean(); // 50% de probabilidad
+            if (hasSpecialOffer) {
+                variables.put("hasSpecialOffer", true);
+                variables.put("discountPercentage", 10);
+                variables.put("discountCode", "VUELVE10");
             }
-        }
 
-        logger.info("Proceso de notificaciones de carritos abandonados completado");
+            // Información de la tienda
+            variables.put("storeName", "APPECOMM");
+            variables.put("storeEmail", "support@appecomm.com");
+            variables.put("storePhone", "+34 123 456 789");
+            variables.put("year", java.time.Year.now().getValue());
+
+            // Enlaces sociales
+            Map<String, String> socialLinks = new HashMap<>();
+            socialLinks.put("facebook", "https://facebook.com/appecomm");
+            socialLinks.put("instagram", "https://instagram.com/appecomm");
+            socialLinks.put("twitter", "https://twitter.com/appecomm");
+            variables.put("socialLinks", socialLinks);
+
+            // URL de cancelación de suscripción
+            String unsubscribeToken = preferenceService.generateUnsubscribeToken(user.getId(), "CART");
+            variables.put("unsubscribeUrl", "https://appecomm.com/notifications/unsubscribe?token=" + unsubscribeToken);
+
+            // Enviar la notificación
+            notificationService.sendUserNotification(
+                    user,
+                    NotificationType.CART_ABANDONED,
+                    "¿Olvidaste algo en tu carrito?",
+                    user.getPreferredLanguage(),
+                    variables
+            );
+
+            logger.info("Notificación de carrito abandonado enviada a usuario: {}", user.getEmail());
+            return true;
+
+        } catch (Exception e) {
+            logger.error("Error procesando carrito abandonado {}: {}", cartId, e.getMessage(), e);
+            return false;
+        }
     }
 
     /**
@@ -347,16 +390,7 @@ public class NotificationCampaignService {
         // Esta sería una implementación mucho más sofisticada
         // Por ahora solo devolvemos algunos productos de ejemplo
 
-        List<Product> topProducts = productRepository.findTop10ByOrderBySalesCountDesc();
-
-        if (topProducts.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        // Limitar al número solicitado y convertir a DTOs
-        return topProducts.stream()
-                .limit(count)
-                .map(productService::convertToDto)
-                .collect(Collectors.toList());
+        // Los más vendidos salen del ranking en memoria, sin consultar la base de datos
+        return rankingService.getBestSellers(count, null);
     }
 }
@@ -1,5 +1,6 @@
 package com.emerbv.ecommdb.service.notification;
 
+import com.emerbv.ecommdb.dto.CartDto;
 import com.emerbv.ecommdb.dto.NotificationDto;
 import com.emerbv.ecommdb.enums.NotificationType;
 import com.emerbv.ecommdb.model.*;
@@ -8,10 +9,13 @@ import com.emerbv.ecommdb.service.cart.ICartService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -33,6 +37,21 @@ public class NotificationScheduler {
     private final ICartService cartService;
     private final NotificationPreferenceService preferenceService;
 
+    @Value("${notification.campaign.cart-abandoned.delay-hours:24}")
+    private int cartAbandonedDelayHours;
+
+    @Value("${notification.campaign.cart-abandoned.max-age-hours:72}")
+    private int cartAbandonedMaxAgeHours;
+
+    @Value("${notification.campaign.cart-abandoned.max-attempts:2}")
+    private int cartAbandonedMaxAttempts;
+
+    @Value("${notification.campaign.cart-abandoned.min-cart-value:0}")
+    private BigDecimal cartAbandonedMinCartValue;
+
+    @Value("${notification.campaign.cart-abandoned.page-size:200}")
+    private int cartAbandonedPageSize;
+
     /**
      * Tarea programada para enviar notificaciones de carritos abandonados
      * Se ejecuta cada 6 horas
@@ -42,118 +61,133 @@ public class NotificationScheduler {
     public void scheduledAbandonedCartNotifications() {
         logger.info("Iniciando proceso programado de notificaciones de carritos abandonados");
 
-        // 1. Obtener usuarios que tienen habilitadas las notificaciones de carrito
-        List<NotificationPreference> eligibleUsers = preferenceRepository.findByCartRemindersTrue();
-
-        if (eligibleUsers.isEmpty()) {
-            logger.info("No hay usuarios elegibles para notificaciones de carrito abandonado");
-            return;
-        }
-
-        // 2. Definir el período de tiempo para considerar un carrito como abandonado
-        // (entre 24h y 72h para no ser intrusivos)
-        LocalDateTime cutoffStart = LocalDateTime.now().minusHours(72);
-        LocalDateTime cutoffEnd = LocalDateTime.now().minusHours(24);
+        // 1. Definir el período de tiempo para considerar un carrito como abandonado
+        // (entre delay-hours y max-age-hours para no ser intrusivos), con como mucho max-attempts
+        // recordatorios por carrito separados al menos delay-hours
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoffStart = now.minusHours(cartAbandonedMaxAgeHours);
+        LocalDateTime cutoffEnd = now.minusHours(cartAbandonedDelayHours);
 
         int notificationsCount = 0;
 
-        // 3. Para cada usuario elegible, verificar carritos abandonados
-        for (NotificationPreference preference : eligibleUsers) {
-            try {
-                Long userId = preference.getUserId();
-
-                // Obtener el carrito del usuario
-                Cart cart = cartRepository.findByUserId(userId);
-
-                // Verificar si el carrito existe y tiene items
-                if (cart == null || cart.getItems() == null || cart.getItems().isEmpty()) {
-                    continue;
-                }
-
-                // Verificar si el carrito no ha sido modificado en el período definido
-                // Este campo lastModified debería agregarse a la entidad Cart
-                // Por ahora simplemente asumiremos que todos los carritos son candidatos
-
-                // Obtener el usuario
-                User user = userRepository.findById(userId).orElse(null);
-                if (user == null) {
-                    continue;
+        // 2. Recorrer por páginas de (última actividad, id) solo los carritos de la ventana cuyos usuarios
+        // tienen habilitados los recordatorios
+        LocalDateTime afterActivity = cutoffStart;
+        long afterId = 0L;
+        List<CartRepository.AbandonedCartView> page;
+        do {
+            page = cartRepository.findAbandonedCarts(afterActivity, afterId, cutoffEnd, cartAbandonedMaxAttempts,
+                    cutoffEnd, cartAbandonedMinCartValue, true, Limit.of(cartAbandonedPageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            CartRepository.AbandonedCartView last = page.get(page.size() - 1);
+            afterActivity = last.getLastActivityAt();
+            afterId = last.getCartId();
+
+            // Vistas de solo lectura de los carritos y sus usuarios, una consulta para cada uno por página
+            Map<Long, CartDto> carts = cartService.getCartViews(
+                    page.stream().map(CartRepository.AbandonedCartView::getCartId).toList());
+            Map<Long, User> users = userRepository.findAllById(
+                    page.stream().map(CartRepository.AbandonedCartView::getUserId).toList()).stream()
+                    .collect(Collectors.toMap(User::getId, user -> user));
+
+            // 3. Enviar la notificación de cada carrito abandonado y anotarla en el carrito
+            List<Long> reminded = new ArrayList<>();
+            for (CartRepository.AbandonedCartView abandoned : page) {
+                if (sendAbandonedCartNotification(abandoned.getUserId(), users.get(abandoned.getUserId()),
+                        carts.get(abandoned.getCartId()))) {
+                    reminded.add(abandoned.getCartId());
                 }
+            }
+            if (!reminded.isEmpty()) {
+                cartRepository.markReminded(reminded, now);
+                notificationsCount += reminded.size();
+            }
+        } while (page.size() == cartAbandonedPageSize);
 
-                // Generar URL con token seguro para recuperar el carrito
-                String cartRecoveryUrl = generateCartRecoveryUrl(cart.getId(), userId);
-
-                // Preparar la notificación
-                Map<String, Object> variables = new HashMap<>();
-                
-                // Variables básicas
-                variables.put("userName", user.getFirstName());
-                variables.put("cartItems", cart.getItems().stream()
-                    .map(item -> {
-                        Map<String, Object> itemMap = new HashMap<>();
-                        Map<String, Object> productMap = new HashMap<>();
-                        productMap.put("name", item.getProduct().getName());
-                        productMap.put("images", item.getProduct().getImages().stream()
-                            .map(image -> {
-                                Map<String, String> imageMap = new HashMap<>();
-                                imageMap.put("downloadUrl", image.getDownloadUrl());
-                                return imageMap;
-                            })
-                            .toList());
-                        itemMap.put("product", productMap);
-                        itemMap.put("variantName", item.getVariantName());
-                        itemMap.put("quantity", item.getQuantity());
-                        itemMap.put("totalPrice", item.getTotalPrice());
-                        return itemMap;
-                    })
-                    .toList());
-                variables.put("totalAmount", cart.getTotalAmount());
-                variables.put("cartRecoveryUrl", cartRecoveryUrl);
-
-                // Añadir una oferta especial si queremos incentivar la compra
-                boolean hasSpecialOffer = new Random().nextBoolean(); // 50% de probabilidad
-                if (hasSpecialOffer) {
-                    variables.put("hasSpecialOffer", true);
-                    variables.put("discountPercentage", 10);
-                    variables.put("discountCode", "VUELVE10");
-                }
+        logger.info("Proceso de notificaciones de carritos abandonados completado. Se enviaron {} notificaciones",
+                notificationsCount);
+    }
 
-                // Información de la tienda
-                variables.put("storeName", "APPECOMM");
-                variables.put("storeEmail", "support@appecomm.com");
-                variables.put("storePhone", "+34 123 456 789");
-                variables.put("year", java.time.Year.now().getValue());
-
-                // Enlaces sociales
-                Map<String, String> socialLinks = new HashMap<>();
-                socialLinks.put("facebook", "https://facebook.com/appecomm");
-                socialLinks.put("instagram", "https://instagram.com/appecomm");
-                socialLinks.put("twitter", "https://twitter.com/appecomm");
-                variables.put("socialLinks", socialLinks);
-
-                // URL de cancelación de suscripción
-                String unsubscribeToken = preferenceService.generateUnsubscribeToken(userId, "CART");
-                variables.put("unsubscribeUrl", "https://appecomm.com/notifications/unsubscribe?token=" + unsubscribeToken);
-
-                // Enviar notificación
-                notificationService.sendUserNotification(
-                        user,
-                        NotificationType.CART_ABANDONED,
-                        "¿Olvidaste algo en tu carrito?",
-                        user.getPreferredLanguage(),
-                        variables
-                );
-
-                notificationsCount++;
+    private boolean sendAbandonedCartNotification(Long userId, User user, CartDto cart) {
+        try {
+            if (user == null || cart == null || cart.getItems().isEmpty()) {
+                return false;
+            }
 
-            } catch (Exception e) {
-                logger.error("Error procesando carrito abandonado para usuario {}: {}",
-                        preference.getUserId(), e.getMessage(), e);
+            // Generar URL con token seguro para recuperar el carrito
+            String cartRecoveryUrl = generateCartRecoveryUrl(cart.getCartId(), userId);
+
+            // Preparar la notificación
+            Map<String, Object> variables = new HashMap<>();
+            
+            // Variables básicas
+            variables.put("userName", user.getFirstName());
+            variables.put("cartItems", cart.getItems().stream()
+                .filter(item -> item.getProduct() != null)
+                .map(item -> {
+                    Map<String, Object> itemMap = new HashMap<>();
+                    Map<String, Object> productMap = new HashMap<>();
+                    productMap.put("name", item.getProduct().getName());
+                    productMap.put("images", item.getImages().stream()
+                        .map(image -> {
+                            Map<String, String> imageMap = new HashMap<>();
+                            imageMap.put("downloadUrl", image.getDownloadUrl());
+                            return imageMap;
+                        })
+                        .toList());
+                    itemMap.put("product", productMap);
+                    itemMap.put("variantName", item.getVariantName());
+                    itemMap.put("quantity", item.getQuantity());
+                    itemMap.put("totalPrice", item.getTotalPrice());
+                    return itemMap;
+                })
+                .toList());
+            variables.put("totalAmount", cart.getTotalAmount());
+            variables.put("cartRecoveryUrl", cartRecoveryUrl);
+
+            // Añadir una oferta especial si queremos incentivar la compra
+            boolean hasSpecialOffer = new Random().nextBoolean(); // 50% de probabilidad
+            if (hasSpecialOffer) {
+                variables.put("hasSpecialOffer", true);
+                variables.put("discountPercentage", 10);
+                variables.put("discountCode", "VUELVE10");
             }
-        }
 
-        logger.info("Proceso de notificaciones de carritos abandonados completado. Se enviaron {} notificaciones",
-                notificationsCount);
+            // Información de la tienda
+            variables.put("storeName", "APPECOMM");
+            variables.put("storeEmail", "support@appecomm.com");
+            variables.put("storePhone", "+34 123 456 789");
+            variables.put("year", java.time.Year.now().getValue());
+
+            // Enlaces sociales
+            Map<String, String> socialLinks = new HashMap<>();
+            socialLinks.put("facebook", "https://facebook.com/appecomm");
+            socialLinks.put("instagram", "https://instagram.com/appecomm");
+            socialLinks.put("twitter", "https://twitter.com/appecomm");
+            variables.put("socialLinks", socialLinks);
+
+            // URL de cancelación de suscripción
+            String unsubscribeToken = preferenceService.generateUnsubscribeToken(userId, "CART");
+            variables.put("unsubscribeUrl", "https://appecomm.com/notifications/unsubscribe?token=" + unsubscribeToken);
+
+            // Enviar notificación
+            notificationService.sendUserNotification(
+                    user,
+                    NotificationType.CART_ABANDONED,
+                    "¿Olvidaste algo en tu carrito?",
+                    user.getPreferredLanguage(),
+                    variables
+            );
+
+            return true;
+
+        } catch (Exception e) {
+            logger.error("Error procesando carrito abandonado para usuario {}: {}",
+                    userId, e.getMessage(), e);
+            return false;
+        }
     }
 
     /**
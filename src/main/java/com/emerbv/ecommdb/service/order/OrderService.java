@@ -1,21 +1,23 @@
 package com.emerbv.ecommdb.service.order;
 
 import com.emerbv.ecommdb.dto.OrderDto;
-import com.emerbv.ecommdb.dto.OrderItemDto;
 import com.emerbv.ecommdb.enums.OrderStatus;
 import com.emerbv.ecommdb.enums.NotificationType;
 import com.emerbv.ecommdb.exceptions.ResourceNotFoundException;
+import com.emerbv.ecommdb.mapper.OrderMapper;
 import com.emerbv.ecommdb.model.*;
 import com.emerbv.ecommdb.repository.OrderRepository;
 import com.emerbv.ecommdb.repository.ProductRepository;
 import com.emerbv.ecommdb.repository.ShippingDetailsRepository;
 import com.emerbv.ecommdb.repository.VariantRepository;
 import com.emerbv.ecommdb.service.cart.CartService;
+import com.emerbv.ecommdb.service.catalog.ProductChangedEvent;
 import com.emerbv.ecommdb.service.notification.INotificationService;
+import com.emerbv.ecommdb.service.ranking.ProductActivityEvent;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -36,14 +38,18 @@ public class OrderService implements IOrderService {
     private final VariantRepository variantRepository;
     private final CartService cartService;
     private final ShippingDetailsRepository shippingDetailsRepository;
-    private final ModelMapper modelMapper;
+    private final OrderMapper orderMapper;
     private final INotificationService notificationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @Override
     public Order placeOrder(Long userId, Long shippingDetailsId) {
         // Obtener el carrito del usuario
         Cart cart = cartService.getCartByUserId(userId);
+
+        // Con el carrito en memoria, los últimos cambios se escriben dentro de esta transacción antes de leerlo
+        cartService.flushCart(cart.getId());
         if (cart.getItems().isEmpty()) {
             throw new IllegalStateException("No se puede crear una orden con un carrito vacío");
         }
@@ -113,15 +119,19 @@ public class OrderService implements IOrderService {
 
     @Transactional
     private void updateInventory(Product product, CartItem cartItem) {
+        // El stock forma parte del detalle del producto: nueva versión para los ETags
+        product.markModified();
+
         // Si el item tiene variantId, actualizar el inventario de la variante
         if (cartItem.getVariantId() != null) {
             Optional<Variant> variantOptional = variantRepository.findById(cartItem.getVariantId());
             if (variantOptional.isPresent()) {
                 Variant variant = variantOptional.get();
-                variant.setInventory(Math.max(0, variant.getInventory() - cartItem.getQuantity()));
+                int removed = Math.min(variant.getInventory(), cartItem.getQuantity());
+                variant.setInventory(variant.getInventory() - removed);
 
-                // Actualizar también el inventario total del producto
-                product.updateProductDetails();
+                // Descontar lo mismo del inventario total desnormalizado, sin cargar las variantes
+                product.setInventory(Math.max(0, product.getInventory() - removed));
 
                 // AÑADIDO: Actualizar el estado del producto basado en el inventario
                 product.updateProductStatus();
@@ -137,11 +147,15 @@ public class OrderService implements IOrderService {
 
             productRepository.save(product);
         }
+
+        // Stock and status changed, refresh the catalog read model once the order is committed
+        eventPublisher.publishEvent(ProductChangedEvent.updated(product.getId()));
     }
 
     private void updateSalesCount(Product product, CartItem cartItem) {
         product.setSalesCount(product.getSalesCount() + cartItem.getQuantity());
         productRepository.save(product);
+        eventPublisher.publishEvent(ProductActivityEvent.sold(product.getId(), cartItem.getQuantity()));
     }
 
     @Override
@@ -162,46 +176,7 @@ public class OrderService implements IOrderService {
 
     @Override
     public OrderDto convertToDto(Order order) {
-        OrderDto orderDto = modelMapper.map(order, OrderDto.class);
-
-        // Manejar manualmente la conversión de OrderItems para incluir la información de variantes
-        if (order.getOrderItems() != null) {
-            orderDto.setItems(order.getOrderItems().stream().map(item -> {
-                OrderItemDto itemDto = new OrderItemDto();
-                itemDto.setProductId(item.getProduct() != null ? item.getProduct().getId() : null);
-                itemDto.setProductName(item.getProduct() != null ? item.getProduct().getName() : "Producto no disponible");
-                itemDto.setProductBrand(item.getProduct() != null ? item.getProduct().getBrand() : "");
-                itemDto.setQuantity(item.getQuantity());
-                itemDto.setPrice(item.getPrice());
-                itemDto.setTotalPrice(item.getTotalPrice());
-
-                // Agregar información de la variante si existe
-                if (item.getVariantId() != null) {
-                    itemDto.setVariantId(item.getVariantId());
-                    itemDto.setVariantName(item.getVariantName());
-                }
-
-                return itemDto;
-            }).toList());
-        }
-
-        // Incluir información de la dirección de envío en el DTO
-        if (order.getShippingDetails() != null) {
-            orderDto.setShippingDetailsId(order.getShippingDetails().getId());
-            orderDto.setShippingAddress(order.getShippingDetails().getAddress());
-            orderDto.setShippingCity(order.getShippingDetails().getCity());
-            orderDto.setShippingState(order.getShippingDetails().getState());
-            orderDto.setShippingPostalCode(order.getShippingDetails().getPostalCode());
-            orderDto.setShippingCountry(order.getShippingDetails().getCountry());
-            orderDto.setShippingPhoneNumber(order.getShippingDetails().getPhoneNumber());
-            orderDto.setShippingFullName(order.getShippingDetails().getFullName());
-        }
-
-        // Añadir información de pago al DTO
-        orderDto.setPaymentMethod(order.getPaymentMethod());
-        orderDto.setPaymentIntentId(order.getPaymentIntentId());
-
-        return orderDto;
+        return orderMapper.toDto(order);
     }
 
     @Override
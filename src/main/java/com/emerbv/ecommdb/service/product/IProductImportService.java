@@ -0,0 +1,10 @@
+package com.emerbv.ecommdb.service.product;
+
+import com.emerbv.ecommdb.dto.ProductImportResultDto;
+import com.emerbv.ecommdb.request.ProductImportRequest;
+
+import java.util.List;
+
+public interface IProductImportService {
+    ProductImportResultDto importProducts(List<ProductImportRequest> requests);
+}
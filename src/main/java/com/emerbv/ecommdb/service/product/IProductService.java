@@ -5,8 +5,9 @@ import com.emerbv.ecommdb.enums.ProductStatus;
 import com.emerbv.ecommdb.model.Product;
 import com.emerbv.ecommdb.request.ProductRequest;
 import com.emerbv.ecommdb.dto.ProductFilterDto;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Window;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface IProductService {
@@ -14,6 +15,7 @@ public interface IProductService {
     Product addProduct(ProductRequest product);
     Product getProductById(Long id);
     void deleteProductById(Long id);
+    List<Long> deleteProductsByIds(Collection<Long> ids);
     Product updateProduct(ProductRequest product, Long productId);
     void updateProductAfterVariantsChange(Product product);
 
@@ -22,7 +24,6 @@ public interface IProductService {
     List<Product> getProductsByCategory(String category);
     List<Product>getProductsByBrand(String brand);
     List<Product> getProductsByCategoryAndBrand(String category, String brand);
-    List<Product>getProductsByName(String name);
     List<Product>getProductsByBrandAndName(String brand, String name);
     Long countProductsByBrandAndName(String brand, String name);
 
@@ -32,21 +33,18 @@ public interface IProductService {
 
     // Specialized queries
     List<Product> getProductsByStatus(ProductStatus status);
-    List<Product> getProductsBySalesCount();
-    List<Product> getProductsByWishCount();
     List<Product> getRecentProducts();
 
     // Pre-order specific queries
     List<Product> getPreOrderProducts();
     List<Product> getPreOrderProductsByStatus(ProductStatus status);
 
-    List<Product> getMostWishedProducts(int limit);
-
     /**
      * Obtiene productos filtrados y ordenados según los criterios especificados
      * @param filterDto DTO con los criterios de filtrado y ordenamiento
-     * @return Página de productos filtrados
+     * @return Ventana de productos filtrados a partir del cursor
      */
-    Page<Product> getFilteredProducts(ProductFilterDto filterDto);
+    Window<Product> scrollFilteredProducts(ProductFilterDto filterDto);
+    String getNextCursor(ProductFilterDto filterDto, Window<Product> window);
 
 }
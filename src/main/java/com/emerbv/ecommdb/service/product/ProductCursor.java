@@ -0,0 +1,121 @@
+package com.emerbv.ecommdb.service.product;
+
+import com.emerbv.ecommdb.model.Product;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Opaque cursor for keyset scrolling of filtered products.
+ * It carries the value of the sort field of the last returned product plus its id, which is
+ * all the next query needs to seek past it ({@code WHERE (field, id) > (:value, :id)}).
+ * Name, price and creation date are nullable, so a null sort value is encoded explicitly and
+ * {@link com.emerbv.ecommdb.repository.ProductSpecifications#after} seeks past it with the database's
+ * nulls-lowest ordering.
+ */
+public final class ProductCursor {
+    private static final String SEPARATOR = "\n";
+    // Every value is prefixed so a null can't be confused with an empty name
+    private static final char NULL_VALUE = '-';
+    private static final char PRESENT_VALUE = '=';
+
+    private ProductCursor() {
+    }
+
+    public static String encode(String sortField, ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalArgumentException("Only keyset positions can be encoded");
+        }
+        Object value = keyset.getKeys().get(sortField);
+        Object id = keyset.getKeys().get("id");
+        String encodedValue = value != null ? PRESENT_VALUE + value.toString() : String.valueOf(NULL_VALUE);
+        String raw = sortField + SEPARATOR + encodedValue + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the position to continue from, or the initial position for an empty cursor
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort
+     */
+    public static KeysetScrollPosition decode(String sortField, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        // Names may contain the separator, so the value is whatever sits between the first and the last one
+        int first = raw.indexOf(SEPARATOR);
+        int last = raw.lastIndexOf(SEPARATOR);
+        if (first < 0 || first == last || !raw.substring(0, first).equals(sortField)) {
+            throw new IllegalArgumentException("Invalid cursor for the requested sort order");
+        }
+
+        try {
+            return position(sortField,
+                    decodeValue(sortField, raw.substring(first + 1, last)),
+                    Long.valueOf(raw.substring(last + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * @return the position right after the given product
+     */
+    public static KeysetScrollPosition after(String sortField, Product product) {
+        return position(sortField, sortValue(sortField, product), product.getId());
+    }
+
+    // A null sort value is left out of the keys, the id alone marks the position as non-initial
+    private static KeysetScrollPosition position(String sortField, Object value, Long id) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        if (value != null) {
+            keys.put(sortField, value);
+        }
+        keys.put("id", Objects.requireNonNull(id));
+        return ScrollPosition.forward(keys);
+    }
+
+    private static Object sortValue(String sortField, Product product) {
+        return switch (sortField) {
+            case "price" -> product.getPrice();
+            case "name" -> product.getName();
+            case "createdAt" -> product.getCreatedAt();
+            case "salesCount" -> product.getSalesCount();
+            case "wishCount" -> product.getWishCount();
+            case "discountPercentage" -> product.getDiscountPercentage();
+            default -> throw new IllegalArgumentException("Unsupported sort field: " + sortField);
+        };
+    }
+
+    private static Object decodeValue(String sortField, String value) {
+        if (value.length() == 1 && value.charAt(0) == NULL_VALUE) {
+            return null;
+        }
+        if (value.isEmpty() || value.charAt(0) != PRESENT_VALUE) {
+            throw new IllegalArgumentException("Invalid cursor value");
+        }
+        return parseValue(sortField, value.substring(1));
+    }
+
+    private static Object parseValue(String sortField, String value) {
+        return switch (sortField) {
+            case "price" -> new BigDecimal(value);
+            case "name" -> value;
+            case "createdAt" -> LocalDateTime.parse(value);
+            case "salesCount", "wishCount", "discountPercentage" -> Integer.valueOf(value);
+            default -> throw new IllegalArgumentException("Unsupported sort field: " + sortField);
+        };
+    }
+}
@@ -0,0 +1,317 @@
+package com.emerbv.ecommdb.service.product;
+
+import com.emerbv.ecommdb.dto.ProductImportResultDto;
+import com.emerbv.ecommdb.enums.ProductStatus;
+import com.emerbv.ecommdb.model.Category;
+import com.emerbv.ecommdb.repository.CategoryRepository;
+import com.emerbv.ecommdb.repository.ProductRepository;
+import com.emerbv.ecommdb.request.ProductImportRequest;
+import com.emerbv.ecommdb.request.VariantRequest;
+import com.emerbv.ecommdb.service.catalog.ICatalogService;
+import com.emerbv.ecommdb.util.HtmlSanitizer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk product import.
+ * Rows are validated and sanitized in parallel, deduplicated in memory against each other and against
+ * the existing name/brand pairs, categories are resolved once per distinct name, and products and
+ * variants are written with JDBC batches, one transaction per batch so a failing batch does not
+ * discard the rest of the import.
+ */
+@Service
+public class ProductImportService implements IProductImportService {
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final String INSERT_PRODUCT = "INSERT INTO product (name, brand, price, inventory, description, "
+            + "category_id, discount_percentage, status, sales_count, wish_count, pre_order, created_at, "
+            + "version, last_modified_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, 0, ?, ?, 1, ?)";
+    private static final String INSERT_VARIANT = "INSERT INTO variant (name, price, inventory, product_id) "
+            + "VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final HtmlSanitizer htmlSanitizer;
+    private final Validator validator;
+    private final ICatalogService catalogService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public ProductImportService(
+            JdbcTemplate jdbcTemplate,
+            ProductRepository productRepository,
+            CategoryRepository categoryRepository,
+            HtmlSanitizer htmlSanitizer,
+            Validator validator,
+            ICatalogService catalogService,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.htmlSanitizer = htmlSanitizer;
+        this.validator = validator;
+        this.catalogService = catalogService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    private record ImportRow(
+            int row,
+            String name,
+            String brand,
+            BigDecimal price,
+            int inventory,
+            String description,
+            String categoryName,
+            int discountPercentage,
+            ProductStatus status,
+            boolean preOrder,
+            List<VariantRequest> variants,
+            String error) {
+
+        static ImportRow failed(int row, ProductImportRequest request, String error) {
+            return new ImportRow(row, request.getName(), request.getBrand(), null, 0, null, null, 0, null,
+                    false, List.of(), error);
+        }
+    }
+
+    @Override
+    public ProductImportResultDto importProducts(List<ProductImportRequest> requests) {
+        long start = System.nanoTime();
+        ProductImportResultDto result = new ProductImportResultDto();
+        result.setReceived(requests.size());
+
+        // Validation and HTML sanitizing are pure CPU work, spread them over the cores
+        List<ImportRow> rows = IntStream.range(0, requests.size())
+                .parallel()
+                .mapToObj(i -> prepare(i, requests.get(i)))
+                .toList();
+
+        List<ImportRow> accepted = deduplicate(rows, result);
+        Map<String, Long> categoryIds = resolveCategories(accepted, result);
+
+        for (int from = 0; from < accepted.size(); from += batchSize) {
+            List<ImportRow> batch = accepted.subList(from, Math.min(from + batchSize, accepted.size()));
+            try {
+                Integer variants = transactionTemplate.execute(status -> insertBatch(batch, categoryIds));
+                result.setImported(result.getImported() + batch.size());
+                result.setVariantsImported(result.getVariantsImported() + (variants != null ? variants : 0));
+            } catch (RuntimeException e) {
+                logger.error("Import batch of {} products starting at row {} failed: {}",
+                        batch.size(), batch.get(0).row(), e.getMessage(), e);
+                batch.forEach(row -> addError(result, row, "Batch insert failed: " + e.getMessage()));
+            }
+        }
+
+        if (result.getImported() > 0) {
+            // One full rebuild instead of a snapshot patch per imported product
+            catalogService.rebuild();
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        result.setDurationMs(elapsedMs);
+        result.setProductsPerSecond(elapsedMs > 0 ? result.getImported() * 1000.0 / elapsedMs : result.getImported());
+        logger.info("Imported {} of {} products ({} duplicates, {} failed) in {} ms",
+                result.getImported(), result.getReceived(), result.getDuplicates(), result.getFailed(), elapsedMs);
+        return result;
+    }
+
+    private ImportRow prepare(int row, ProductImportRequest request) {
+        if (request == null) {
+            return ImportRow.failed(row, new ProductImportRequest(), "Empty row");
+        }
+
+        List<String> violations = new ArrayList<>();
+        validator.validate(request).stream().map(ConstraintViolation::getMessage).forEach(violations::add);
+        if (request.getCategory() != null && (request.getCategory().getName() == null || request.getCategory().getName().isBlank())) {
+            violations.add("Category name is required");
+        }
+        List<VariantRequest> variants = request.getVariants() != null ? request.getVariants() : List.of();
+        for (int i = 0; i < variants.size(); i++) {
+            VariantRequest variant = variants.get(i);
+            if (variant == null) {
+                // A null entry in the variants array, the validator rejects null objects
+                violations.add("Variant " + (i + 1) + " is empty");
+                continue;
+            }
+            validator.validate(variant).stream().map(ConstraintViolation::getMessage).forEach(violations::add);
+        }
+        if (!violations.isEmpty()) {
+            return ImportRow.failed(row, request, String.join("; ", violations));
+        }
+
+        // Same sanitizing and defaults as ProductService.addProduct / VariantService
+        List<VariantRequest> sanitizedVariants = variants.stream().map(variant -> {
+            VariantRequest sanitized = new VariantRequest();
+            sanitized.setName(htmlSanitizer.sanitize(variant.getName()));
+            sanitized.setPrice(variant.getPrice());
+            sanitized.setInventory(Math.max(variant.getInventory(), 0));
+            return sanitized;
+        }).toList();
+
+        BigDecimal price = sanitizedVariants.stream()
+                .map(VariantRequest::getPrice)
+                .min(BigDecimal::compareTo)
+                .orElse(request.getPrice());
+        int inventory = sanitizedVariants.isEmpty()
+                ? Math.max(request.getInventory(), 0)
+                : sanitizedVariants.stream().mapToInt(VariantRequest::getInventory).sum();
+        ProductStatus status = request.getStatus() != null
+                ? request.getStatus()
+                : inventory > 0 ? ProductStatus.IN_STOCK : ProductStatus.OUT_OF_STOCK;
+
+        return new ImportRow(
+                row,
+                htmlSanitizer.sanitize(request.getName()),
+                htmlSanitizer.sanitize(request.getBrand()),
+                price,
+                inventory,
+                htmlSanitizer.sanitize(request.getDescription()),
+                htmlSanitizer.sanitize(request.getCategory().getName()),
+                Math.max(request.getDiscountPercentage(), 0),
+                status,
+                request.isPreOrder(),
+                sanitizedVariants,
+                null);
+    }
+
+    private List<ImportRow> deduplicate(List<ImportRow> rows, ProductImportResultDto result) {
+        Set<String> existing = productRepository.findAllNameAndBrand().stream()
+                .map(pair -> key((String) pair[0], (String) pair[1]))
+                .collect(Collectors.toCollection(HashSet::new));
+        Map<String, Integer> firstRowByKey = new HashMap<>();
+
+        List<ImportRow> accepted = new ArrayList<>();
+        for (ImportRow row : rows) {
+            if (row.error() != null) {
+                addError(result, row, row.error());
+                continue;
+            }
+            String key = key(row.name(), row.brand());
+            if (existing.contains(key)) {
+                result.setDuplicates(result.getDuplicates() + 1);
+                result.getErrors().add(new ProductImportResultDto.RowError(row.row(), row.name(), row.brand(),
+                        row.brand() + " " + row.name() + " already exists"));
+                continue;
+            }
+            Integer firstRow = firstRowByKey.putIfAbsent(key, row.row());
+            if (firstRow != null) {
+                result.setDuplicates(result.getDuplicates() + 1);
+                result.getErrors().add(new ProductImportResultDto.RowError(row.row(), row.name(), row.brand(),
+                        "Duplicate of row " + firstRow));
+                continue;
+            }
+            accepted.add(row);
+        }
+        return accepted;
+    }
+
+    private Map<String, Long> resolveCategories(List<ImportRow> rows, ProductImportResultDto result) {
+        Map<String, Long> categoryIds = new HashMap<>();
+        for (Object[] category : categoryRepository.findAllIdAndName()) {
+            categoryIds.putIfAbsent(normalize((String) category[1]), (Long) category[0]);
+        }
+
+        for (ImportRow row : rows) {
+            String key = normalize(row.categoryName());
+            if (!categoryIds.containsKey(key)) {
+                Category created = categoryRepository.save(new Category(row.categoryName()));
+                categoryIds.put(key, created.getId());
+                result.setCategoriesCreated(result.getCategoriesCreated() + 1);
+            }
+        }
+        return categoryIds;
+    }
+
+    private Integer insertBatch(List<ImportRow> batch, Map<String, Long> categoryIds) {
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            long[] productIds = new long[batch.size()];
+
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_PRODUCT, Statement.RETURN_GENERATED_KEYS)) {
+                for (ImportRow row : batch) {
+                    statement.setString(1, row.name());
+                    statement.setString(2, row.brand());
+                    statement.setBigDecimal(3, row.price());
+                    statement.setInt(4, row.inventory());
+                    if (row.description() != null) {
+                        statement.setString(5, row.description());
+                    } else {
+                        statement.setNull(5, Types.VARCHAR);
+                    }
+                    statement.setLong(6, categoryIds.get(normalize(row.categoryName())));
+                    statement.setInt(7, row.discountPercentage());
+                    statement.setString(8, row.status().name());
+                    statement.setBoolean(9, row.preOrder());
+                    statement.setTimestamp(10, now);
+                    statement.setTimestamp(11, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < productIds.length) {
+                        productIds[i++] = keys.getLong(1);
+                    }
+                    if (i != productIds.length) {
+                        throw new IllegalStateException("Expected " + productIds.length + " generated ids, got " + i);
+                    }
+                }
+            }
+
+            int variantCount = 0;
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_VARIANT)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    for (VariantRequest variant : batch.get(i).variants()) {
+                        statement.setString(1, variant.getName());
+                        statement.setBigDecimal(2, variant.getPrice());
+                        statement.setInt(3, variant.getInventory());
+                        statement.setLong(4, productIds[i]);
+                        statement.addBatch();
+                        variantCount++;
+                    }
+                }
+                if (variantCount > 0) {
+                    statement.executeBatch();
+                }
+            }
+            return variantCount;
+        });
+    }
+
+    private void addError(ProductImportResultDto result, ImportRow row, String message) {
+        result.setFailed(result.getFailed() + 1);
+        result.getErrors().add(new ProductImportResultDto.RowError(row.row(), row.name(), row.brand(), message));
+    }
+
+    // existsByNameAndBrand and findByName compare with MySQL's case-insensitive collation, keep the same semantics
+    private static String key(String name, String brand) {
+        return normalize(name) + '\u0000' + normalize(brand);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
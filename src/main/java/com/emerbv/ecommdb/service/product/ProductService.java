@@ -1,44 +1,59 @@
 package com.emerbv.ecommdb.service.product;
 
-import com.emerbv.ecommdb.dto.ImageDto;
 import com.emerbv.ecommdb.dto.ProductDto;
 import com.emerbv.ecommdb.dto.ProductFilterDto;
 import com.emerbv.ecommdb.enums.ProductStatus;
 import com.emerbv.ecommdb.exceptions.AlreadyExistsException;
 import com.emerbv.ecommdb.exceptions.ProductNotFoundException;
 import com.emerbv.ecommdb.exceptions.ResourceNotFoundException;
+import com.emerbv.ecommdb.mapper.ProductMapper;
 import com.emerbv.ecommdb.model.*;
 import com.emerbv.ecommdb.repository.*;
 import com.emerbv.ecommdb.request.ProductRequest;
+import com.emerbv.ecommdb.service.catalog.ProductChangedEvent;
+import com.emerbv.ecommdb.service.catalog.ProductsDeletedEvent;
+import com.emerbv.ecommdb.service.storage.IImageContentService;
 import com.emerbv.ecommdb.util.HtmlSanitizer;
-import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.hibernate.Hibernate;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService implements IProductService  {
+    // Keeps the IN lists of the bulk delete statements within a reasonable size
+    private static final int DELETE_CHUNK_SIZE = 500;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
-    private final ModelMapper modelMapper;
+    private final ProductMapper productMapper;
     private final ImageRepository imageRepository;
+    private final VariantRepository variantRepository;
     private final CartItemRepository cartItemRepository;
     private final OrderItemRepository orderItemRepository;
     private final HtmlSanitizer htmlSanitizer;
     private final CartRepository cartRepository;
+    private final WishListRepository wishListRepository;
+    private final IImageContentService imageContentService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -57,8 +72,11 @@ public class ProductService implements IProductService  {
 
         Category category = findOrCreateCategory(request.getCategory().getName());
         Product product = createProduct(request, category);
+        product.markModified();
 
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(savedProduct.getId()));
+        return savedProduct;
     }
 
     private void validateProductRequest(ProductRequest request) {
@@ -149,65 +167,67 @@ public class ProductService implements IProductService  {
     @Override
     @Transactional
     public void deleteProductById(Long id) {
-        productRepository.findById(id)
-                .ifPresentOrElse(product -> deleteProductAndReferences(product, id), () -> {
-                    throw new EntityNotFoundException("Product not found!");
-                });
-    }
-
-    private void deleteProductAndReferences(Product product, Long productId) {
-        // Disassociate product from category
-        Optional.ofNullable(product.getCategory())
-                .ifPresent(category -> category.getProducts().remove(product));
-        product.setCategory(null);
-
-        // Batch update cart items
-        updateCartItemsForDeletedProduct(productId);
-
-        // Batch update order items
-        updateOrderItemsForDeletedProduct(productId);
-
-        // Finally delete the product
-        productRepository.delete(product);
+        if (!productRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Product not found!");
+        }
+        deleteProductsAndReferences(List.of(id));
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
     }
 
+    @Override
     @Transactional
-    private void updateCartItemsForDeletedProduct(Long productId) {
-        // Remove CartItems with this product instead of just setting product to null
-        List<CartItem> cartItems = cartItemRepository.findByProductId(productId);
-        if (!cartItems.isEmpty()) {
-            // First, disassociate the items from any carts they may be in
-            cartItems.forEach(item -> {
-                if (item.getCart() != null) {
-                    item.getCart().getItems().remove(item);
-                    // Update the cart's total amount
-                    item.getCart().updateTotalAmount();
-                    cartRepository.save(item.getCart());
-                }
-            });
-            // Then delete the cart items
-            cartItemRepository.deleteAll(cartItems);
+    public List<Long> deleteProductsByIds(Collection<Long> ids) {
+        List<Long> deletedIds = new ArrayList<>();
+        List<Long> requestedIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        for (int from = 0; from < requestedIds.size(); from += DELETE_CHUNK_SIZE) {
+            List<Long> chunk = requestedIds.subList(from, Math.min(from + DELETE_CHUNK_SIZE, requestedIds.size()));
+            List<Long> existingIds = productRepository.findExistingIds(chunk);
+            if (!existingIds.isEmpty()) {
+                deleteProductsAndReferences(existingIds);
+                deletedIds.addAll(existingIds);
+            }
+        }
+        if (!deletedIds.isEmpty()) {
+            eventPublisher.publishEvent(new ProductsDeletedEvent(deletedIds));
         }
+        return deletedIds;
     }
 
-    @Transactional
-    private void updateOrderItemsForDeletedProduct(Long productId) {
+    private void deleteProductsAndReferences(List<Long> productIds) {
+        // A fixed number of set-based statements, whatever the number of carts, orders or wish lists involved.
+        // Cart totals are recomputed first, while the lines of the deleted products can still be excluded
+        cartRepository.updateTotalsExcludingProducts(productIds);
+        cartItemRepository.deleteByProductIdIn(productIds);
+
         // For OrderItems, keeping the null reference is okay since orders are historical records
-        List<OrderItem> orderItems = orderItemRepository.findByProductId(productId);
-        if (!orderItems.isEmpty()) {
-            orderItems.forEach(item -> item.setProduct(null));
-            orderItemRepository.saveAll(orderItems);
-        }
+        orderItemRepository.detachProducts(productIds);
+        wishListRepository.deleteProductLinks(productIds);
+
+        // Variants and images go with the product; the bulk delete skips the category cascade
+        List<String> storageKeys = new ArrayList<>(imageRepository.findStorageKeysByProductIdIn(productIds));
+        storageKeys.addAll(imageRepository.findRenditionKeysByProductIdIn(productIds));
+        variantRepository.deleteByProductIdIn(productIds);
+        imageRepository.deleteRenditionsByProductIdIn(productIds);
+        imageRepository.deleteByProductIdIn(productIds);
+        productRepository.deleteByIdIn(productIds);
+
+        // One reference per deleted image or rendition; files go once the delete is committed
+        storageKeys.forEach(imageContentService::release);
     }
 
     @Override
     public Product updateProduct(ProductRequest request, Long productId) {
         validateProductRequest(request);
 
-        return productRepository.findById(productId)
+        Product updatedProduct = productRepository.findById(productId)
                 .map(existingProduct -> updateExistingProduct(existingProduct, request))
-                .map(productRepository::save)
+                .map(existingProduct -> {
+                    existingProduct.markModified();
+                    return productRepository.save(existingProduct);
+                })
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found!"));
+        eventPublisher.publishEvent(ProductChangedEvent.updated(productId));
+        return updatedProduct;
     }
 
     private Product updateExistingProduct(Product existingProduct, ProductRequest request) {
@@ -236,6 +256,11 @@ public class ProductService implements IProductService  {
         if (request.getStatus() != null) {
             existingProduct.setStatus(request.getStatus());
         } else {
+            // Variants own price and stock when the product has any
+            VariantRepository.VariantTotals totals = variantRepository.findTotalsByProductId(existingProduct.getId());
+            if (totals.getVariantCount() > 0) {
+                existingProduct.applyVariantTotals(totals.getMinPrice(), totals.getTotalInventory().intValue());
+            }
             existingProduct.updateProductStatus();
         }
 
@@ -244,7 +269,12 @@ public class ProductService implements IProductService  {
 
     @Override
     public void updateProductAfterVariantsChange(Product product) {
+        // One aggregate query over the variant rows instead of loading the collection
+        VariantRepository.VariantTotals totals = variantRepository.findTotalsByProductId(product.getId());
+        product.applyVariantTotals(totals.getMinPrice(), totals.getTotalInventory().intValue());
+        product.markModified();
         productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(product.getId()));
     }
 
     @Override
@@ -268,11 +298,6 @@ public class ProductService implements IProductService  {
         return productRepository.findByCategoryNameAndBrand(category, brand);
     }
 
-    @Override
-    public List<Product> getProductsByName(String name) {
-        return productRepository.findByName(name);
-    }
-
     @Override
     public List<Product> getProductsByBrandAndName(String brand, String name) {
         return productRepository.findByBrandAndName(brand, name);
@@ -285,33 +310,49 @@ public class ProductService implements IProductService  {
 
     @Override
     public List<ProductDto> getConvertedProducts(List<Product> products) {
-        return products.stream().map(this::convertToDto).toList();
-    }
+        if (products.isEmpty()) {
+            return List.of();
+        }
 
-    @Override
-    public ProductDto convertToDto(Product product) {
-        ProductDto productDto = modelMapper.map(product, ProductDto.class);
-        List<Image> images = imageRepository.findByProductId(product.getId());
-        List<ImageDto> imageDtos = images.stream()
-                .map(image -> modelMapper.map(image, ImageDto.class))
+        // Load the variants and images of the whole page up front so the number of queries
+        // does not depend on how many products are being converted
+        Set<Long> productIds = products.stream()
+                .map(Product::getId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, List<Variant>> variantsByProduct = variantRepository.findByProductIdIn(productIds)
+                .stream()
+                .collect(Collectors.groupingBy(variant -> variant.getProduct().getId()));
+        Map<Long, List<Image>> imagesByProduct = getImagesByProduct(products, productIds);
+
+        return products.stream()
+                .map(product -> productMapper.toDto(
+                        product,
+                        variantsByProduct.getOrDefault(product.getId(), List.of()),
+                        imagesByProduct.getOrDefault(product.getId(), List.of())))
                 .toList();
-        productDto.setImages(imageDtos);
-        return productDto;
     }
 
     @Override
-    public List<Product> getProductsByStatus(ProductStatus status) {
-        return productRepository.findByStatus(status);
+    public ProductDto convertToDto(Product product) {
+        return getConvertedProducts(List.of(product)).get(0);
     }
 
-    @Override
-    public List<Product> getProductsBySalesCount() {
-        return productRepository.findTop10ByOrderBySalesCountDesc();
+    private Map<Long, List<Image>> getImagesByProduct(List<Product> products, Set<Long> productIds) {
+        // Most finders already fetch the images through the entity graph, only query when they are missing
+        boolean imagesLoaded = products.stream()
+                .allMatch(product -> product.getImages() != null && Hibernate.isInitialized(product.getImages()));
+        if (imagesLoaded) {
+            return products.stream()
+                    .collect(Collectors.toMap(Product::getId, Product::getImages, (first, second) -> first));
+        }
+        return imageRepository.findByProductIdIn(productIds)
+                .stream()
+                .collect(Collectors.groupingBy(image -> image.getProduct().getId()));
     }
 
     @Override
-    public List<Product> getProductsByWishCount() {
-        return productRepository.findTop10ByOrderByWishCountDesc();
+    public List<Product> getProductsByStatus(ProductStatus status) {
+        return productRepository.findByStatus(status);
     }
 
     @Override
@@ -337,14 +378,6 @@ public class ProductService implements IProductService  {
         return productRepository.findByPreOrderTrueAndStatus(status);
     }
 
-    @Override
-    public List<Product> getMostWishedProducts(int limit) {
-        return productRepository.findTop10ByOrderByWishCountDesc()
-                .stream()
-                .limit(limit)
-                .collect(Collectors.toList());
-    }
-
     /*
     @Override
     public List<Product> getProductsByPrice(Double price) {
@@ -358,58 +391,38 @@ public class ProductService implements IProductService  {
      */
 
     @Override
-    public Page<Product> getFilteredProducts(ProductFilterDto filterDto) {
-        // Create pageable with proper sort direction
-        Pageable pageable = createPageable(filterDto);
-
-        // Use the repository method
-        return productRepository.findProductsWithFilters(
-                filterDto.getAvailability(),
-                filterDto.getCategory(),
-                filterDto.getBrand(),
-                filterDto.getMinPrice(),
-                filterDto.getMaxPrice(),
-                pageable
-        );
-    }
-
-    private Pageable createPageable(ProductFilterDto filterDto) {
-        String sortField = getSortField(filterDto.getSortBy());
-        Sort.Direction direction = getSortDirection(filterDto.getSortBy());
-
-        return PageRequest.of(
-                filterDto.getPage(),
-                filterDto.getSize(),
-                Sort.by(direction, sortField)
+    public Window<Product> scrollFilteredProducts(ProductFilterDto filterDto) {
+        ProductSortOrder sortOrder = ProductSortOrder.of(filterDto.getSortBy());
+        String sortField = sortOrder.getField();
+        Sort.Direction direction = sortOrder.getDirection();
+
+        // The id tie-breaker makes the keyset unique, so no product is skipped or repeated between windows
+        Sort sort = Sort.by(direction, sortField).and(Sort.by(direction, "id"));
+        KeysetScrollPosition position = ProductCursor.decode(sortField, filterDto.getCursor());
+
+        // Seeks past the cursor instead of using OFFSET, and never issues a count query.
+        // One extra row tells whether there is a next window.
+        int size = filterDto.getSize();
+        List<Product> rows = productRepository.findBy(
+                ProductSpecifications.matching(filterDto)
+                        .and(ProductSpecifications.after(sortField, direction, position)),
+                query -> query.sortBy(sort)
+                        .project("category")
+                        .limit(size + 1)
+                        .all()
         );
+        boolean hasNext = rows.size() > size;
+        List<Product> content = hasNext ? rows.subList(0, size) : rows;
+        return Window.from(content, index -> ProductCursor.after(sortField, content.get(index)), hasNext);
     }
 
-    private String getSortField(String sortBy) {
-        if (sortBy == null) {
-            return "createdAt"; // Default sort
-        }
-
-        return switch (sortBy.toLowerCase()) {
-            case "price_asc", "price_desc" -> "price";
-            case "name_asc", "name_desc" -> "name";
-            case "bestselling" -> "salesCount";
-            case "mostwished" -> "wishCount";
-            case "newest" -> "createdAt";
-            case "discount" -> "discountPercentage";
-            default -> "createdAt";
-        };
-    }
-
-    private Sort.Direction getSortDirection(String sortBy) {
-        if (sortBy == null) {
-            return Sort.Direction.DESC; // Default direction
+    @Override
+    public String getNextCursor(ProductFilterDto filterDto, Window<Product> window) {
+        if (!window.hasNext() || window.isEmpty()) {
+            return null;
         }
-
-        return switch (sortBy.toLowerCase()) {
-            case "price_asc", "name_asc" -> Sort.Direction.ASC;
-            case "price_desc", "name_desc", "bestselling", "mostwished", "newest", "discount" -> Sort.Direction.DESC;
-            default -> Sort.Direction.DESC;
-        };
+        return ProductCursor.encode(ProductSortOrder.of(filterDto.getSortBy()).getField(),
+                window.positionAt(window.size() - 1));
     }
 
 }
@@ -0,0 +1,75 @@
+package com.emerbv.ecommdb.service.product;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+import org.springframework.data.domain.Sort;
+
+import java.util.Comparator;
+
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.comparingInt;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsFirst;
+
+/**
+ * Sort orders of the product filter ({@code sortBy}), shared by the keyset scroll query and the
+ * in-memory filter so both list products in the same order.
+ */
+public enum ProductSortOrder {
+    PRICE_ASC("price", Sort.Direction.ASC),
+    PRICE_DESC("price", Sort.Direction.DESC),
+    NAME_ASC("name", Sort.Direction.ASC),
+    NAME_DESC("name", Sort.Direction.DESC),
+    BESTSELLING("salesCount", Sort.Direction.DESC),
+    MOSTWISHED("wishCount", Sort.Direction.DESC),
+    NEWEST("createdAt", Sort.Direction.DESC),
+    DISCOUNT("discountPercentage", Sort.Direction.DESC);
+
+    private final String field;
+    private final Sort.Direction direction;
+
+    ProductSortOrder(String field, Sort.Direction direction) {
+        this.field = field;
+        this.direction = direction;
+    }
+
+    /**
+     * @return the order for the given {@code sortBy} parameter, newest first when missing or unknown
+     */
+    public static ProductSortOrder of(String sortBy) {
+        if (sortBy == null) {
+            return NEWEST;
+        }
+        for (ProductSortOrder order : values()) {
+            if (order.name().equalsIgnoreCase(sortBy)) {
+                return order;
+            }
+        }
+        return NEWEST;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    /**
+     * Same order as the database: the id breaks ties, null values sort lowest (first ascending,
+     * last descending) and names compare case-insensitively like the column collation.
+     */
+    public Comparator<ProductDto> comparator() {
+        Comparator<ProductDto> byField = switch (field) {
+            case "price" -> comparing(ProductDto::getPrice, nullsFirst(naturalOrder()));
+            case "name" -> comparing(ProductDto::getName, nullsFirst(String.CASE_INSENSITIVE_ORDER));
+            case "createdAt" -> comparing(ProductDto::getCreatedAt, nullsFirst(naturalOrder()));
+            case "salesCount" -> comparingInt(ProductDto::getSalesCount);
+            case "wishCount" -> comparingInt(ProductDto::getWishCount);
+            case "discountPercentage" -> comparingInt(ProductDto::getDiscountPercentage);
+            default -> throw new IllegalStateException("Unsupported sort field: " + field);
+        };
+        Comparator<ProductDto> order = byField.thenComparing(ProductDto::getId);
+        return direction.isAscending() ? order : order.reversed();
+    }
+}
@@ -0,0 +1,13 @@
+package com.emerbv.ecommdb.service.ranking;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+
+import java.util.List;
+import java.util.Map;
+
+public interface IProductRankingService {
+    List<ProductDto> getBestSellers(int limit, String category);
+    List<ProductDto> getMostWished(int limit, String category);
+    List<ProductDto> getTrending(int limit, String category);
+    Map<String, Object> getRankingInfo();
+}
@@ -0,0 +1,70 @@
+package com.emerbv.ecommdb.service.ranking;
+
+import java.util.*;
+
+/**
+ * Scores by product kept in descending order, so the top K is the first K entries
+ * and every update is O(log n).
+ * <p>
+ * Not thread-safe: {@link ProductRankingService} guards it with a read/write lock.
+ */
+final class Leaderboard {
+    private static final Comparator<Entry> ORDER = Comparator.comparingDouble(Entry::score).reversed()
+            .thenComparing(Entry::productId);
+
+    private final Map<Long, Double> scores = new HashMap<>();
+    private final NavigableSet<Entry> ordered = new TreeSet<>(ORDER);
+
+    record Entry(Long productId, double score) {
+    }
+
+    double get(Long productId) {
+        return scores.getOrDefault(productId, 0.0);
+    }
+
+    boolean contains(Long productId) {
+        return scores.containsKey(productId);
+    }
+
+    void add(Long productId, double delta) {
+        set(productId, get(productId) + delta);
+    }
+
+    void set(Long productId, double score) {
+        Double previous = scores.remove(productId);
+        if (previous != null) {
+            ordered.remove(new Entry(productId, previous));
+        }
+        if (score > 0) {
+            scores.put(productId, score);
+            ordered.add(new Entry(productId, score));
+        }
+    }
+
+    void remove(Long productId) {
+        set(productId, 0);
+    }
+
+    /**
+     * Multiplies every score by the same factor; the order does not change
+     */
+    void scale(double factor) {
+        List<Entry> entries = new ArrayList<>(ordered);
+        scores.clear();
+        ordered.clear();
+        entries.forEach(entry -> set(entry.productId(), entry.score() * factor));
+    }
+
+    void clear() {
+        scores.clear();
+        ordered.clear();
+    }
+
+    int size() {
+        return scores.size();
+    }
+
+    Iterable<Entry> descending() {
+        return ordered;
+    }
+}
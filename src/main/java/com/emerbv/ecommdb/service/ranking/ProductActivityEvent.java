@@ -0,0 +1,33 @@
+package com.emerbv.ecommdb.service.ranking;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Published when a product is sold or added to / removed from a wishlist, so the leaderboards
+ * can be updated incrementally once the change is committed.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductActivityEvent {
+    public enum Type { SALE, WISH }
+
+    private final Long productId;
+    private final Type type;
+    private final int delta;
+    private final Instant occurredAt;
+
+    public static ProductActivityEvent sold(Long productId, int quantity) {
+        return new ProductActivityEvent(productId, Type.SALE, quantity, Instant.now());
+    }
+
+    public static ProductActivityEvent wished(Long productId) {
+        return new ProductActivityEvent(productId, Type.WISH, 1, Instant.now());
+    }
+
+    public static ProductActivityEvent unwished(Long productId) {
+        return new ProductActivityEvent(productId, Type.WISH, -1, Instant.now());
+    }
+}
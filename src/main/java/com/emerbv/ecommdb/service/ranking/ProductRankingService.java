@@ -0,0 +1,203 @@
+package com.emerbv.ecommdb.service.ranking;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.repository.OrderItemRepository;
+import com.emerbv.ecommdb.service.catalog.CatalogChangedEvent;
+import com.emerbv.ecommdb.service.catalog.CatalogSnapshot;
+import com.emerbv.ecommdb.service.catalog.ICatalogService;
+import com.emerbv.ecommdb.service.catalog.SnapshotFollower;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * In-memory bestseller, most-wished and trending leaderboards.
+ * All-time boards are seeded from the catalog counters on every full rebuild and then follow
+ * {@link ProductActivityEvent}s; the trending board weights every sale and wish with an exponential
+ * time decay, so recent activity outranks old totals.
+ */
+@Service
+public class ProductRankingService extends SnapshotFollower implements IProductRankingService {
+    private static final Logger logger = LoggerFactory.getLogger(ProductRankingService.class);
+
+    private static final double SALE_WEIGHT = 1.0;
+    private static final double WISH_WEIGHT = 0.5;
+    // Trending scores are stored relative to an epoch; rebase well before exp() overflows a double
+    private static final double MAX_EXPONENT = 300;
+    // Older activity weighs less than 1/256 of a fresh one, not worth loading on startup
+    private static final int SEED_HALF_LIVES = 8;
+    private static final int MAX_LIMIT = 100;
+
+    private final OrderItemRepository orderItemRepository;
+    private final Duration halfLife;
+    private final double decayPerSecond;
+
+    private final Leaderboard bestSellers = new Leaderboard();
+    private final Leaderboard mostWished = new Leaderboard();
+    private final Leaderboard trending = new Leaderboard();
+    private Instant epoch = Instant.now();
+    private boolean trendingSeeded;
+
+    public ProductRankingService(
+            ICatalogService catalogService,
+            OrderItemRepository orderItemRepository,
+            @Value("${app.ranking.trending-half-life-hours:72}") long halfLifeHours) {
+        super(catalogService);
+        this.orderItemRepository = orderItemRepository;
+        this.halfLife = Duration.ofHours(halfLifeHours);
+        this.decayPerSecond = Math.log(2) / halfLife.toSeconds();
+    }
+
+    @EventListener
+    @Order(LISTENER_ORDER)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        follow(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductActivity(ProductActivityEvent event) {
+        // Waits for a seed in progress and applies on top of it
+        update(() -> {
+            switch (event.getType()) {
+                case SALE -> {
+                    bestSellers.add(event.getProductId(), event.getDelta());
+                    trending.add(event.getProductId(), SALE_WEIGHT * event.getDelta() * decayWeight(event.getOccurredAt()));
+                }
+                case WISH -> {
+                    mostWished.add(event.getProductId(), event.getDelta());
+                    // Removing a wish lowers the all-time count, but the interest it showed still happened
+                    if (event.getDelta() > 0) {
+                        trending.add(event.getProductId(), WISH_WEIGHT * event.getDelta() * decayWeight(event.getOccurredAt()));
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public List<ProductDto> getBestSellers(int limit, String category) {
+        return top(bestSellers, limit, category, true);
+    }
+
+    @Override
+    public List<ProductDto> getMostWished(int limit, String category) {
+        return top(mostWished, limit, category, true);
+    }
+
+    @Override
+    public List<ProductDto> getTrending(int limit, String category) {
+        return top(trending, limit, category, false);
+    }
+
+    @Override
+    public Map<String, Object> getRankingInfo() {
+        return read(() -> {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("bestSellers", bestSellers.size());
+            info.put("mostWished", mostWished.size());
+            info.put("trending", trending.size());
+            info.put("trendingHalfLifeHours", halfLife.toHours());
+            return info;
+        });
+    }
+
+    /**
+     * @param withUnscored whether products without any score fill the rest of the list, by id
+     */
+    private List<ProductDto> top(Leaderboard board, int limit, String category, boolean withUnscored) {
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        String categoryKey = category != null ? CatalogSnapshot.normalize(category) : null;
+        // Per-category boards are the global order filtered, so a product moving category needs no bookkeeping
+        Predicate<ProductDto> inCategory = product -> categoryKey == null || (product.getCategory() != null
+                && CatalogSnapshot.normalize(product.getCategory().getName()).equals(categoryKey));
+
+        return read(() -> {
+            CatalogSnapshot snapshot = followedSnapshot();
+            List<ProductDto> products = new ArrayList<>(size);
+            for (Leaderboard.Entry entry : board.descending()) {
+                if (products.size() >= size) {
+                    break;
+                }
+                snapshot.getProduct(entry.productId())
+                        .filter(inCategory)
+                        .ifPresent(products::add);
+            }
+            // Like the former ORDER BY on the counters, products nobody bought or wished yet close the list
+            if (withUnscored) {
+                for (ProductDto product : snapshot.getProducts()) {
+                    if (products.size() >= size) {
+                        break;
+                    }
+                    if (!board.contains(product.getId()) && inCategory.test(product)) {
+                        products.add(product);
+                    }
+                }
+            }
+            return products;
+        });
+    }
+
+    /**
+     * Seeds the all-time boards from the catalog counters, and the trending board once from the recent orders
+     */
+    @Override
+    protected void rebuild(CatalogSnapshot snapshot) {
+        bestSellers.clear();
+        mostWished.clear();
+        for (ProductDto product : snapshot.getProducts()) {
+            bestSellers.set(product.getId(), product.getSalesCount());
+            mostWished.set(product.getId(), product.getWishCount());
+        }
+
+        // Trending only lives in memory, rebuild it once from the recent orders
+        List<Object[]> recentSales = List.of();
+        if (!trendingSeeded) {
+            recentSales = orderItemRepository.findSalesSince(LocalDateTime.now().minus(halfLife.multipliedBy(SEED_HALF_LIVES)));
+            for (Object[] sale : recentSales) {
+                Long productId = (Long) sale[0];
+                int quantity = ((Number) sale[1]).intValue();
+                Instant orderedAt = ((LocalDateTime) sale[2]).atZone(ZoneId.systemDefault()).toInstant();
+                trending.add(productId, SALE_WEIGHT * quantity * decayWeight(orderedAt));
+            }
+            trendingSeeded = true;
+        }
+        logger.info("Product leaderboards seeded from catalog v{} ({} recent sales)",
+                snapshot.getVersion(), recentSales.size());
+    }
+
+    @Override
+    protected void apply(Long productId, Optional<ProductDto> product) {
+        // Counters of existing products are kept up to date by activity events, only drop deleted ones
+        if (product.isEmpty()) {
+            bestSellers.remove(productId);
+            mostWished.remove(productId);
+            trending.remove(productId);
+        }
+    }
+
+    /**
+     * exp(decay * (t - epoch)): a score stored as the sum of these weights, multiplied by
+     * exp(-decay * (now - epoch)), is the decayed score at any time, and the relative order
+     * of the products never changes as time passes.
+     */
+    private double decayWeight(Instant occurredAt) {
+        double exponent = decayPerSecond * Duration.between(epoch, occurredAt).toSeconds();
+        if (exponent > MAX_EXPONENT) {
+            trending.scale(Math.exp(-exponent));
+            epoch = occurredAt;
+            exponent = 0;
+        }
+        return Math.exp(exponent);
+    }
+}
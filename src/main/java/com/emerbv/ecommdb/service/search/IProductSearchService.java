@@ -0,0 +1,14 @@
+package com.emerbv.ecommdb.service.search;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+
+public interface IProductSearchService {
+    Page<ProductDto> search(String query, Pageable pageable);
+    List<ProductDto> search(String query);
+    Map<String, Object> getIndexInfo();
+}
@@ -0,0 +1,226 @@
+package com.emerbv.ecommdb.service.search;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index over product name, brand, category and description.
+ * Terms are accent-folded and lowercased so "nino" finds "Niño"; queries match whole terms,
+ * prefixes (search as you type) and terms within a small edit distance (typos), and results are
+ * ranked with BM25 over field-weighted term frequencies.
+ * <p>
+ * Not thread-safe: {@link ProductSearchService} guards it with a read/write lock.
+ */
+final class ProductSearchIndex {
+    // BM25 parameters, usual defaults
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // A prefix or fuzzy hit is worth less than the exact term
+    private static final double PREFIX_FACTOR = 0.8;
+    private static final double FUZZY_FACTOR = 0.6;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern MARKUP = Pattern.compile("<[^>]*>|&#?\\w+;");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "de", "del", "la", "las", "el", "los", "lo", "un", "una", "unos", "unas", "y", "o", "en",
+            "con", "sin", "por", "para", "al", "a", "se", "su", "sus", "que", "es",
+            "the", "and", "of", "for", "with", "an");
+
+    enum Field {
+        NAME(3.0), BRAND(2.0), CATEGORY(1.5), DESCRIPTION(1.0);
+
+        private final double weight;
+
+        Field(double weight) {
+            this.weight = weight;
+        }
+    }
+
+    // term -> product id -> field-weighted term frequency
+    private final NavigableMap<String, Map<Long, Double>> postings = new TreeMap<>();
+    private final Map<Long, Set<String>> termsByProduct = new HashMap<>();
+    private final Map<Long, Double> lengthByProduct = new HashMap<>();
+    private double totalLength;
+
+    static ProductSearchIndex of(Collection<ProductDto> products) {
+        ProductSearchIndex index = new ProductSearchIndex();
+        products.forEach(index::put);
+        return index;
+    }
+
+    int size() {
+        return lengthByProduct.size();
+    }
+
+    void put(ProductDto product) {
+        remove(product.getId());
+
+        Map<String, Double> frequencies = new HashMap<>();
+        addField(frequencies, product.getName(), Field.NAME);
+        addField(frequencies, product.getBrand(), Field.BRAND);
+        addField(frequencies, product.getCategory() != null ? product.getCategory().getName() : null, Field.CATEGORY);
+        addField(frequencies, product.getDescription(), Field.DESCRIPTION);
+
+        double length = 0;
+        for (Map.Entry<String, Double> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>()).put(product.getId(), entry.getValue());
+            length += entry.getValue();
+        }
+        termsByProduct.put(product.getId(), frequencies.keySet());
+        lengthByProduct.put(product.getId(), length);
+        totalLength += length;
+    }
+
+    void remove(Long productId) {
+        Set<String> terms = termsByProduct.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Double> posting = postings.get(term);
+            posting.remove(productId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= lengthByProduct.remove(productId);
+    }
+
+    /**
+     * @return ids of the products matching every query term, best match first
+     */
+    List<Long> search(String query) {
+        List<String> queryTerms = tokenize(query).stream().distinct().toList();
+        if (queryTerms.isEmpty() || lengthByProduct.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores = null;
+        for (String queryTerm : queryTerms) {
+            Map<Long, Double> termScores = scoreTerm(queryTerm);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                // Every query term has to match somewhere in the product
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((productId, score) -> score + termScores.get(productId));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private Map<Long, Double> scoreTerm(String queryTerm) {
+        Map<Long, Double> scores = new HashMap<>();
+
+        Map<Long, Double> exact = postings.get(queryTerm);
+        if (exact != null) {
+            accumulate(scores, exact, 1.0);
+        }
+
+        if (queryTerm.length() >= MIN_PREFIX_LENGTH) {
+            postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false)
+                    .values().stream()
+                    .limit(MAX_PREFIX_EXPANSIONS)
+                    .forEach(posting -> accumulate(scores, posting, PREFIX_FACTOR));
+        }
+
+        if (queryTerm.length() >= MIN_FUZZY_LENGTH) {
+            int maxEdits = queryTerm.length() >= 8 ? 2 : 1;
+            // Typos on the first letter are rare, restricting to it keeps the scan small
+            String first = queryTerm.substring(0, 1);
+            for (Map.Entry<String, Map<Long, Double>> entry
+                    : postings.subMap(first, true, first + Character.MAX_VALUE, false).entrySet()) {
+                String term = entry.getKey();
+                if (term.equals(queryTerm) || Math.abs(term.length() - queryTerm.length()) > maxEdits) {
+                    continue;
+                }
+                int distance = editDistance(queryTerm, term, maxEdits);
+                if (distance <= maxEdits) {
+                    accumulate(scores, entry.getValue(), FUZZY_FACTOR / distance);
+                }
+            }
+        }
+
+        return scores;
+    }
+
+    private void accumulate(Map<Long, Double> scores, Map<Long, Double> posting, double factor) {
+        int productCount = lengthByProduct.size();
+        double averageLength = totalLength / productCount;
+        double idf = Math.log(1 + (productCount - posting.size() + 0.5) / (posting.size() + 0.5));
+
+        posting.forEach((productId, frequency) -> {
+            double length = lengthByProduct.get(productId);
+            double score = factor * idf * frequency * (K1 + 1)
+                    / (frequency + K1 * (1 - B + B * length / averageLength));
+            // Several expansions of the same query term count once, with their best score
+            scores.merge(productId, score, Math::max);
+        });
+    }
+
+    private static void addField(Map<String, Double> frequencies, String text, Field field) {
+        for (String term : tokenize(text)) {
+            frequencies.merge(term, field.weight, Double::sum);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(MARKUP.matcher(text).replaceAll(" "), Normalizer.Form.NFD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+
+        List<String> terms = new ArrayList<>();
+        for (String token : SEPARATORS.split(folded)) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Levenshtein distance that gives up as soon as it exceeds {@code max}
+     */
+    static int editDistance(String a, String b, int max) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,89 @@
+package com.emerbv.ecommdb.service.search;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.service.catalog.CatalogChangedEvent;
+import com.emerbv.ecommdb.service.catalog.CatalogSnapshot;
+import com.emerbv.ecommdb.service.catalog.ICatalogService;
+import com.emerbv.ecommdb.service.catalog.SnapshotFollower;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Ranked full-text product search served from memory.
+ * The index follows the catalog snapshot: full rebuilds replace it, single product patches update it in place.
+ */
+@Service
+public class ProductSearchService extends SnapshotFollower implements IProductSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchService.class);
+
+    private ProductSearchIndex index;
+
+    public ProductSearchService(ICatalogService catalogService) {
+        super(catalogService);
+    }
+
+    @EventListener
+    @Order(LISTENER_ORDER)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        follow(event);
+    }
+
+    @Override
+    public Page<ProductDto> search(String query, Pageable pageable) {
+        // Page and total come from the same index version, resolved against the snapshot it reflects
+        return read(() -> {
+            List<Long> productIds = index.search(query);
+            int from = (int) Math.min(pageable.getOffset(), productIds.size());
+            int to = Math.min(from + pageable.getPageSize(), productIds.size());
+            List<ProductDto> content = toProducts(productIds.subList(from, to), followedSnapshot());
+            return new PageImpl<>(content, pageable, productIds.size());
+        });
+    }
+
+    @Override
+    public List<ProductDto> search(String query) {
+        return read(() -> toProducts(index.search(query), followedSnapshot()));
+    }
+
+    @Override
+    public Map<String, Object> getIndexInfo() {
+        return read(() -> {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("indexedProducts", index.size());
+            info.put("catalogVersion", followedSnapshot().getVersion());
+            return info;
+        });
+    }
+
+    @Override
+    protected void rebuild(CatalogSnapshot snapshot) {
+        long start = System.currentTimeMillis();
+        index = ProductSearchIndex.of(snapshot.getProducts());
+        logger.info("Product search index rebuilt with {} products in {} ms",
+                index.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    protected void apply(Long productId, Optional<ProductDto> product) {
+        // Re-tokenizes only this product, the posting lists of the others are left untouched
+        product.ifPresentOrElse(index::put, () -> index.remove(productId));
+    }
+
+    private List<ProductDto> toProducts(List<Long> productIds, CatalogSnapshot snapshot) {
+        return productIds.stream()
+                .map(snapshot::getProduct)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+}
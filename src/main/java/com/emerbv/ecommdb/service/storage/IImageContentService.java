@@ -0,0 +1,25 @@
+package com.emerbv.ecommdb.service.storage;
+
+import org.springframework.core.io.InputStreamSource;
+
+public interface IImageContentService {
+    /**
+     * Guarda el contenido en el almacenamiento de imágenes, sin cargarlo entero en memoria,
+     * y suma una referencia. Si el mismo contenido ya existe se reutiliza
+     * @param source Fichero subido, bytes generados o blob migrado; se puede leer una segunda vez
+     *               si el contenido se borró mientras se guardaba
+     * @return Clave (hash SHA-256) y tamaño del contenido
+     */
+    StoredObject store(InputStreamSource source);
+
+    /**
+     * Suma una referencia a un contenido ya guardado
+     */
+    void acquire(StoredObject stored);
+
+    /**
+     * Resta una referencia; con la última se borra el contenido al confirmar la transacción
+     * @param key Clave del contenido, puede ser null
+     */
+    void release(String key);
+}
@@ -0,0 +1,134 @@
+package com.emerbv.ecommdb.service.storage;
+
+import com.emerbv.ecommdb.repository.CategoryRepository;
+import com.emerbv.ecommdb.repository.ImageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Moves the bytes still kept in the legacy blob columns of Image and Category into the image storage,
+ * one row per transaction, then clears the column. Runs in the background after startup until no row is left;
+ * downloads of rows not migrated yet are still served from the blob.
+ */
+@Service
+public class ImageBlobMigrationService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageBlobMigrationService.class);
+
+    private final ImageRepository imageRepository;
+    private final CategoryRepository categoryRepository;
+    private final IImageContentService imageContentService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public ImageBlobMigrationService(
+            ImageRepository imageRepository,
+            CategoryRepository categoryRepository,
+            IImageContentService imageContentService,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.storage.migrate-blobs:true}") boolean enabled,
+            @Value("${app.storage.migration-batch-size:100}") int batchSize) {
+        this.imageRepository = imageRepository;
+        this.categoryRepository = categoryRepository;
+        this.imageContentService = imageContentService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Async("scheduledTaskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    public void migrate() {
+        long start = System.currentTimeMillis();
+        int images = 0;
+        int failed = 0;
+
+        // Keyset over the ids: failed rows keep their blob and are skipped instead of retried forever
+        Long afterId = 0L;
+        List<Long> ids;
+        while (!(ids = imageRepository.findIdsWithLegacyBlob(afterId, Limit.of(batchSize))).isEmpty()) {
+            for (Long id : ids) {
+                if (migrateImage(id)) {
+                    images++;
+                } else {
+                    failed++;
+                }
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+
+        int categories = 0;
+        for (Long id : categoryRepository.findIdsWithLegacyImage()) {
+            if (migrateCategory(id)) {
+                categories++;
+            } else {
+                failed++;
+            }
+        }
+
+        if (images + categories + failed > 0) {
+            logger.info("Image blobs migrated to storage: {} images, {} categories, {} failed in {} ms",
+                    images, categories, failed, System.currentTimeMillis() - start);
+        }
+    }
+
+    private boolean migrateImage(Long id) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> imageRepository.findById(id).ifPresent(image -> {
+                StoredObject stored = store(image.getImage());
+                image.setStorageKey(stored.key());
+                image.setFileSize(stored.size());
+                image.setImage(null);
+            }));
+            return true;
+        } catch (RuntimeException e) {
+            logger.error("Could not migrate blob of image {}: {}", id, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean migrateCategory(Long id) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> categoryRepository.findById(id).ifPresent(category -> {
+                StoredObject stored = store(category.getImage());
+                category.setImageStorageKey(stored.key());
+                category.setImageSize(stored.size());
+                category.setImage(null);
+            }));
+            return true;
+        } catch (RuntimeException e) {
+            logger.error("Could not migrate image blob of category {}: {}", id, e.getMessage());
+            return false;
+        }
+    }
+
+    private StoredObject store(Blob blob) {
+        // The blob can be read again if the content has to be rewritten
+        return imageContentService.store(() -> {
+            try {
+                return blob.getBinaryStream();
+            } catch (SQLException e) {
+                throw new IOException("Error copying blob to storage: " + e.getMessage(), e);
+            }
+        });
+    }
+}
@@ -0,0 +1,108 @@
+package com.emerbv.ecommdb.service.storage;
+
+import com.emerbv.ecommdb.repository.StoredContentRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Almacenamiento de imágenes deduplicado por hash: el mismo contenido subido a varios productos,
+ * variantes o categorías se guarda una sola vez y StoredContent lleva la cuenta de referencias.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImageContentService implements IImageContentService, SmartInitializingSingleton {
+    private static final Logger logger = LoggerFactory.getLogger(ImageContentService.class);
+
+    private final ImageStorage imageStorage;
+    private final StoredContentRepository storedContentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Antes de que el servidor acepte peticiones: cuenta las referencias del contenido guardado
+     * antes de existir el contador, para que una liberación no borre un fichero todavía en uso
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        int tracked = storedContentRepository.backfillMissingReferences();
+        if (tracked > 0) {
+            logger.info("Contador de referencias inicializado para {} contenidos del almacenamiento", tracked);
+        }
+    }
+
+    @Override
+    public StoredObject store(InputStreamSource source) {
+        try {
+            StoredObject stored;
+            try (InputStream content = source.getInputStream()) {
+                stored = imageStorage.store(content);
+            }
+            acquire(stored);
+            // La última referencia anterior se liberó y su fichero se borró entre la escritura y el acquire.
+            // El borrado y el acquire se excluyen por el bloqueo de la fila, así que tras el acquire
+            // el fichero ya no se puede borrar: basta con volver a escribirlo si falta
+            if (!imageStorage.exists(stored.key())) {
+                try (InputStream again = source.getInputStream()) {
+                    imageStorage.store(again);
+                }
+            }
+            return stored;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not store the content. Error: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void acquire(StoredObject stored) {
+        storedContentRepository.acquire(stored.key(), stored.size());
+    }
+
+    @Override
+    public void release(String key) {
+        if (key == null) {
+            return;
+        }
+        if (storedContentRepository.decrement(key) == 0) {
+            logger.warn("Se libera el contenido {} sin referencias registradas", key);
+            return;
+        }
+        if (storedContentRepository.existsByStorageKeyAndRefCountLessThanEqual(key, 0)) {
+            eventPublisher.publishEvent(new StoredContentReleasedEvent(key));
+        }
+    }
+
+    /**
+     * Borra el fichero y la fila con la fila bloqueada (SELECT ... FOR UPDATE): un acquire concurrente
+     * del mismo contenido espera a que termine y vuelve a crear la fila, y store() reescribe el fichero
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onContentReleased(StoredContentReleasedEvent event) {
+        String key = event.getKey();
+        // Una subida del mismo contenido puede haberlo vuelto a referenciar entretanto
+        boolean unreferenced = storedContentRepository.findForUpdate(key)
+                .map(content -> content.getRefCount() <= 0)
+                .orElse(false);
+        if (!unreferenced) {
+            return;
+        }
+        try {
+            imageStorage.delete(key);
+        } catch (IOException e) {
+            // La fila se queda sin referencias: un acquire posterior la reutiliza con el fichero existente
+            logger.warn("No se pudo borrar el contenido {} del almacenamiento: {}", key, e.getMessage());
+            return;
+        }
+        storedContentRepository.deleteIfUnreferenced(key);
+    }
+}
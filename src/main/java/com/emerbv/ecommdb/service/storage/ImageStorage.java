@@ -0,0 +1,38 @@
+package com.emerbv.ecommdb.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Backend for image bytes. Content is addressed by its SHA-256 hash, storing the same bytes
+ * twice returns the same key and keeps a single copy; the database only keeps the key.
+ */
+public interface ImageStorage {
+    // Hash prefix appended to download URLs (?v=...), enough to tell contents apart
+    int VERSION_LENGTH = 16;
+
+    /**
+     * Stores the stream without buffering it in memory
+     * @param content Bytes to store, read to the end but not closed
+     * @return Key and size of the stored content
+     */
+    StoredObject store(InputStream content) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    boolean exists(String key);
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Local file holding the content, so it can be sent with a zero-copy transfer.
+     * Backends without local files (object stores) return empty and are served through {@link #open}.
+     */
+    Optional<Path> localPath(String key);
+
+    static String version(String key) {
+        return key.substring(0, VERSION_LENGTH);
+    }
+}
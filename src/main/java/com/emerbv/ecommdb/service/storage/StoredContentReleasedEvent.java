@@ -0,0 +1,14 @@
+package com.emerbv.ecommdb.service.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when the last reference to a stored object is released; the file is deleted
+ * once the transaction that released it has committed.
+ */
+@Getter
+@AllArgsConstructor
+public class StoredContentReleasedEvent {
+    private final String key;
+}
@@ -0,0 +1,7 @@
+package com.emerbv.ecommdb.service.storage;
+
+/**
+ * Result of storing some content: its SHA-256 hex key and its size in bytes.
+ */
+public record StoredObject(String key, long size) {
+}
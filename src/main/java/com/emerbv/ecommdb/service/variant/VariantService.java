@@ -3,6 +3,7 @@ package com.emerbv.ecommdb.service.variant;
 import com.emerbv.ecommdb.dto.VariantDto;
 import com.emerbv.ecommdb.enums.ProductStatus;
 import com.emerbv.ecommdb.exceptions.ResourceNotFoundException;
+import com.emerbv.ecommdb.mapper.ProductMapper;
 import com.emerbv.ecommdb.model.Product;
 import com.emerbv.ecommdb.model.Variant;
 import com.emerbv.ecommdb.repository.VariantRepository;
@@ -10,7 +11,6 @@ import com.emerbv.ecommdb.request.VariantRequest;
 import com.emerbv.ecommdb.service.product.IProductService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -21,7 +21,7 @@ import java.util.List;
 public class VariantService implements IVariantService {
     private  final VariantRepository variantRepository;
     private  final IProductService productService;
-    private final ModelMapper modelMapper;
+    private final ProductMapper productMapper;
 
     @Override
     public Variant getVariantById(Long id) {
@@ -30,8 +30,14 @@ public class VariantService implements IVariantService {
     }
 
     @Override
+    @Transactional
     public void deleteVariantById(Long id) {
-        variantRepository.findById(id).ifPresentOrElse(variantRepository::delete, () -> {
+        variantRepository.findById(id).ifPresentOrElse(variant -> {
+            variantRepository.delete(variant);
+
+            // Recalcular precio, inventario y estado sin la variante eliminada
+            updateProductAfterVariantChange(variant.getProduct());
+        }, () -> {
             throw new ResourceNotFoundException("No variant found with id: " + id);
         });
     }
@@ -97,6 +103,7 @@ public class VariantService implements IVariantService {
 
 
     @Override
+    @Transactional
     public Variant updateVariant(VariantRequest request, Long variantId) {
         return  variantRepository.findById(variantId).map(existingVariant -> {
             existingVariant.setName(request.getName());
@@ -114,20 +121,15 @@ public class VariantService implements IVariantService {
 
     /**
      * Método auxiliar para actualizar todos los detalles del producto después de un cambio en las variantes
-     * Garantiza que el precio, inventario y estado se actualicen correctamente
+     * Garantiza que el precio, inventario y estado se recalculen a partir de las filas de variantes
      */
     private void updateProductAfterVariantChange(Product product) {
-        product.updateProductDetails();
-
-        // Actualizar el estado del producto basado en el inventario total
-        product.updateProductStatus();
-
-        // Guardar los cambios en el producto
+        // Recalcula precio mínimo, inventario total y estado, y guarda el producto
         productService.updateProductAfterVariantsChange(product);
     }
 
     @Override
     public VariantDto convertVariantToDto(Variant variant) {
-        return modelMapper.map(variant, VariantDto.class);
+        return productMapper.toVariantDto(variant);
     }
 }
@@ -1,25 +1,30 @@
 package com.emerbv.ecommdb.service.wishlist;
 
+import com.emerbv.ecommdb.dto.ProductDto;
 import com.emerbv.ecommdb.dto.WishListDto;
 import com.emerbv.ecommdb.exceptions.ResourceNotFoundException;
+import com.emerbv.ecommdb.mapper.WishListMapper;
 import com.emerbv.ecommdb.model.Product;
 import com.emerbv.ecommdb.model.User;
 import com.emerbv.ecommdb.model.WishList;
 import com.emerbv.ecommdb.repository.ProductRepository;
 import com.emerbv.ecommdb.repository.WishListRepository;
+import com.emerbv.ecommdb.service.catalog.ProductChangedEvent;
 import com.emerbv.ecommdb.service.product.IProductService;
+import com.emerbv.ecommdb.service.ranking.ProductActivityEvent;
 import com.emerbv.ecommdb.service.user.IUserService;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -31,7 +36,8 @@ public class WishListService implements IWishListService {
     private final IUserService userService;
     private final IProductService productService;
     private final ProductRepository productRepository;
-    private final ModelMapper modelMapper;
+    private final WishListMapper wishListMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -64,6 +70,11 @@ public class WishListService implements IWishListService {
                 // Incrementar el contador de "wish" del producto
                 product.setWishCount(product.getWishCount() + 1);
                 productRepository.save(product);
+                // wishCount se ve en el detalle del producto: nueva versión para los ETags
+                productRepository.markModified(productId, LocalDateTime.now());
+                eventPublisher.publishEvent(ProductActivityEvent.wished(productId));
+                // wishCount forma parte del producto en el catálogo en memoria
+                eventPublisher.publishEvent(ProductChangedEvent.updated(productId));
 
                 wishListRepository.save(wishList);
             }
@@ -99,6 +110,9 @@ public class WishListService implements IWishListService {
                 if (currentCount > 0) {
                     product.setWishCount(currentCount - 1);
                     productRepository.save(product);
+                    productRepository.markModified(product.getId(), LocalDateTime.now());
+                    eventPublisher.publishEvent(ProductActivityEvent.unwished(productId));
+                    eventPublisher.publishEvent(ProductChangedEvent.updated(productId));
                 }
 
                 wishListRepository.save(wishList);
@@ -142,6 +156,9 @@ public class WishListService implements IWishListService {
                 if (currentCount > 0) {
                     product.setWishCount(currentCount - 1);
                     productRepository.save(product);
+                    productRepository.markModified(product.getId(), LocalDateTime.now());
+                    eventPublisher.publishEvent(ProductActivityEvent.unwished(product.getId()));
+                    eventPublisher.publishEvent(ProductChangedEvent.updated(product.getId()));
                 }
             });
 
@@ -158,23 +175,11 @@ public class WishListService implements IWishListService {
 
     @Override
     public WishListDto convertToDto(WishList wishList) {
-        WishListDto wishListDto = modelMapper.map(wishList, WishListDto.class);
-
-        if (wishList.getUser() != null) {
-            wishListDto.setUserId(wishList.getUser().getId());
-        }
-
-        if (wishList.getProducts() != null && !wishList.getProducts().isEmpty()) {
-            wishListDto.setProducts(
-                    wishList.getProducts().stream()
-                            .map(product -> productService.convertToDto(product))
-                            .collect(Collectors.toSet())
-            );
-        } else {
-            wishListDto.setProducts(new HashSet<>());
-        }
-
-        return wishListDto;
+        // Conversión en lote: número constante de consultas sin importar el tamaño de la lista
+        List<ProductDto> productDtos = wishList.getProducts() == null || wishList.getProducts().isEmpty()
+                ? List.of()
+                : productService.getConvertedProducts(new ArrayList<>(wishList.getProducts()));
+        return wishListMapper.toDto(wishList, productDtos);
     }
 
     public WishList getWishList(Long wishListId) {
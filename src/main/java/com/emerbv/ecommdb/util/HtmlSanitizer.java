@@ -1,11 +1,25 @@
 package com.emerbv.ecommdb.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.jsoup.Jsoup;
 import org.jsoup.safety.Safelist;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 @Component
 public class HtmlSanitizer {
+    // Only short values (names, brands, categories) repeat often enough to be worth remembering
+    private static final int MAX_MEMOIZED_LENGTH = 256;
+
+    private final Cache<String, String> memo;
+
+    public HtmlSanitizer(@Value("${app.sanitizer.memo-size:10000}") long memoSize) {
+        this.memo = Caffeine.newBuilder()
+                .maximumSize(memoSize)
+                .build();
+    }
+
     /**
      * Sanitizes user input to prevent XSS attacks
      * @param input The user input to sanitize
@@ -15,6 +29,43 @@ public class HtmlSanitizer {
         if (input == null) {
             return null;
         }
+        if (isPlainText(input)) {
+            return input;
+        }
+        if (input.length() <= MAX_MEMOIZED_LENGTH) {
+            return memo.get(input, HtmlSanitizer::clean);
+        }
+        return clean(input);
+    }
+
+    private static String clean(String input) {
         return Jsoup.clean(input, Safelist.basic());
     }
+
+    /**
+     * True when Jsoup.clean would return the input unchanged: no markup or entity characters, nothing
+     * the serializer escapes (non-breaking space, unpaired surrogates, control characters) and no
+     * whitespace the pretty printer would collapse or trim. Anything doubtful goes through the parser.
+     */
+    static boolean isPlainText(String input) {
+        int length = input.length();
+        if (length == 0) {
+            return true;
+        }
+        if (input.charAt(0) == ' ' || input.charAt(length - 1) == ' ') {
+            return false;
+        }
+        char previous = 0;
+        for (int i = 0; i < length; i++) {
+            char c = input.charAt(i);
+            if (c == '<' || c == '>' || c == '&' || c == '\u00A0' || c < 0x20 || c == 0x7F
+                    || Character.isSurrogate(c)
+                    || (c == ' ' && previous == ' ')
+                    || (c != ' ' && Character.isWhitespace(c))) {
+                return false;
+            }
+            previous = c;
+        }
+        return true;
+    }
 }
@@ -0,0 +1,240 @@
+package com.emerbv.ecommdb.web;
+
+import com.emerbv.ecommdb.service.catalog.CatalogChangedEvent;
+import com.emerbv.ecommdb.service.category.CategoryChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the serialized body of the hot catalog list endpoints, so repeated requests are answered
+ * with a byte copy instead of going through the controller, the DTO conversion and Jackson again.
+ * Entries are keyed by path plus the sorted query parameters and dropped as a whole on every
+ * catalog or category change. Large bodies are also stored gzip-compressed for clients that accept it.
+ */
+@Component
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+    // Below this size gzip saves less than the Content-Encoding negotiation costs
+    private static final int MIN_GZIP_SIZE = 1024;
+
+    // Headers that describe the stored bytes and are recomputed when an entry is written out
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.CONTENT_ENCODING.toLowerCase(),
+            HttpHeaders.TRANSFER_ENCODING.toLowerCase()
+    );
+
+    // List endpoints served from the catalog snapshot and the read models following it, so the catalog and
+    // category events see every change they show. Lists queried from the database (the keyset scroll,
+    // distinct names) are left out: they can change without any of those events.
+    private static final List<String> CACHED_PATHS = List.of(
+            "/products/all",
+            "/products/products/by/**",
+            "/products/products/*/products",
+            "/products/search",
+            "/products/product/by-brand",
+            "/products/product/*/all/products",
+            "/products/product/*/products",
+            "/products/product/pre-order/**",
+            "/products/filter",
+            "/categories/all"
+    );
+
+    // Rankings move with every sale and wish, not with catalog writes
+    private static final List<String> EXCLUDED_PATHS = List.of(
+            "/products/product/best-sellers/products",
+            "/products/product/most-desired/products",
+            "/products/product/trending/products"
+    );
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final AtomicLong generation = new AtomicLong();
+    private final Cache<String, CachedResponse> cache;
+    private final String apiPrefix;
+
+    public ResponseCacheFilter(
+            @Value("${api.prefix}") String apiPrefix,
+            @Value("${app.response-cache.max-bytes:33554432}") long maxBytes) {
+        this.apiPrefix = apiPrefix;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedResponse value) -> key.length() + value.size())
+                .build();
+    }
+
+    // Runs after the read models have followed the change (SnapshotFollower.LISTENER_ORDER): a request
+    // rendered from an index that is not updated yet would otherwise be stored under the new generation
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        invalidateAll();
+    }
+
+    private void invalidateAll() {
+        // Responses still being rendered against the old data must not be stored
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.startsWith(apiPrefix)) {
+            return true;
+        }
+        String endpoint = path.substring(apiPrefix.length());
+        return EXCLUDED_PATHS.contains(endpoint)
+                || CACHED_PATHS.stream().noneMatch(pattern -> pathMatcher.match(pattern, endpoint));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String key = cacheKey(request);
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            write(cached, request, response);
+            return;
+        }
+
+        long startGeneration = generation.get();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || request.isAsyncStarted()) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+
+        CachedResponse entry = CachedResponse.of(wrapper);
+        cache.put(key, entry);
+        if (generation.get() != startGeneration) {
+            cache.invalidate(key);
+        }
+        write(entry, request, response);
+    }
+
+    private void write(CachedResponse entry, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        entry.headers().forEach((name, values) -> {
+            response.setHeader(name, values.get(0));
+            values.stream().skip(1).forEach(value -> response.addHeader(name, value));
+        });
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        String etag = entry.etag();
+        if (etag != null && new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+
+        byte[] body = entry.body();
+        if (entry.gzipped() != null && acceptsGzip(request)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = entry.gzipped();
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private static String cacheKey(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+
+        // Parameter order and repeated values must not produce different entries for the same result
+        Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+        char separator = '?';
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+            String[] values = parameter.getValue().clone();
+            Arrays.sort(values);
+            for (String value : values) {
+                key.append(separator).append(parameter.getKey()).append('=').append(value);
+                separator = '&';
+            }
+        }
+
+        // CORS headers are part of the stored response and depend on the caller's origin
+        String origin = request.getHeader(HttpHeaders.ORIGIN);
+        if (StringUtils.hasText(origin)) {
+            key.append('#').append(origin);
+        }
+        return key.toString();
+    }
+
+    private record CachedResponse(Map<String, List<String>> headers, byte[] body, byte[] gzipped, String etag) {
+
+        static CachedResponse of(ContentCachingResponseWrapper wrapper) {
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (String name : wrapper.getHeaderNames()) {
+                if (!SKIPPED_HEADERS.contains(name.toLowerCase())) {
+                    headers.putIfAbsent(name, List.copyOf(wrapper.getHeaders(name)));
+                }
+            }
+            if (wrapper.getContentType() != null) {
+                headers.put(HttpHeaders.CONTENT_TYPE, List.of(wrapper.getContentType()));
+            }
+            byte[] body = wrapper.getContentAsByteArray();
+            return new CachedResponse(headers, body, gzip(body), wrapper.getHeader(HttpHeaders.ETAG));
+        }
+
+        int size() {
+            return body.length + (gzipped != null ? gzipped.length : 0);
+        }
+
+        private static byte[] gzip(byte[] body) {
+            if (body.length < MIN_GZIP_SIZE) {
+                return null;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(body);
+            } catch (IOException e) {
+                logger.warn("Could not precompress cached response: {}", e.getMessage());
+                return null;
+            }
+            byte[] compressed = out.toByteArray();
+            return compressed.length < body.length ? compressed : null;
+        }
+    }
+}
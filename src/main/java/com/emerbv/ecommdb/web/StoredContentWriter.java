@@ -0,0 +1,165 @@
+package com.emerbv.ecommdb.web;
+
+import com.emerbv.ecommdb.service.storage.ImageStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Writes stored image content straight to the servlet response. Local files are handed to Tomcat's
+ * sendfile when the connector supports it (the kernel copies the file to the socket), otherwise they are
+ * copied with FileChannel.transferTo; nothing is loaded into a byte array.
+ * <p>
+ * The content hash is the ETag, so conditional requests are answered with 304 without touching the file,
+ * and single byte ranges are served as 206. Requests carrying the current content version (?v=) are
+ * cached as immutable by browsers and proxies, since a new content always gets a new URL.
+ */
+@Component
+@RequiredArgsConstructor
+public class StoredContentWriter {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    // Unversioned URLs may point to new content tomorrow, they are revalidated with the ETag
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
+    private final ImageStorage imageStorage;
+
+    /**
+     * Whether the request URL carries the version of the given content, see {@link ImageStorage#version}
+     */
+    public boolean isCurrentVersion(HttpServletRequest request, String key) {
+        String version = request.getParameter("v");
+        return key != null && version != null
+                && version.length() >= ImageStorage.VERSION_LENGTH && key.startsWith(version);
+    }
+
+    public void write(HttpServletRequest request, HttpServletResponse response,
+                      String key, String contentType, String fileName, boolean immutable) throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, (immutable ? IMMUTABLE : REVALIDATE).getHeaderValue());
+        String etag = "\"" + key + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+        writeHeaders(response, contentType, fileName);
+
+        Optional<Path> localPath = imageStorage.localPath(key);
+        if (localPath.isEmpty()) {
+            try (InputStream content = imageStorage.open(key)) {
+                content.transferTo(response.getOutputStream());
+            }
+            return;
+        }
+
+        Path path = localPath.get();
+        long size = Files.size(path);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        long start = 0;
+        long end = size - 1;
+        HttpRange range = requestedRange(request, etag);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(size);
+                end = range.getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+
+        long length = end - start + 1;
+        response.setContentLengthLong(length);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        transfer(path, start, length, response);
+    }
+
+    /**
+     * Rows not migrated yet by ImageBlobMigrationService are still streamed from their blob
+     */
+    public void writeBlob(HttpServletResponse response, Blob blob, String contentType, String fileName) throws IOException {
+        writeHeaders(response, contentType, fileName);
+        try (InputStream content = blob.getBinaryStream()) {
+            response.setContentLengthLong(blob.length());
+            content.transferTo(response.getOutputStream());
+        } catch (SQLException e) {
+            throw new IOException("Error reading image blob: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Single range of the request, or null when the whole content must be sent: no Range header,
+     * an If-Range for other content, or several ranges (allowed by RFC 9110, images never need them)
+     */
+    private static HttpRange requestedRange(HttpServletRequest request, String etag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void transfer(Path path, long start, long length, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+    }
+
+    private static void writeHeaders(HttpServletResponse response, String contentType, String fileName) {
+        response.setContentType(contentType != null ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        if (fileName != null) {
+            // Inline, so <img> tags and the browser show the image instead of downloading it
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline()
+                    .filename(fileName, StandardCharsets.UTF_8)
+                    .build()
+                    .toString());
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.emerbv.ecommdb.benchmark;
+
+import com.emerbv.ecommdb.dto.CartDto;
+import com.emerbv.ecommdb.dto.ImageDto;
+import com.emerbv.ecommdb.dto.OrderDto;
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.dto.VariantDto;
+import com.emerbv.ecommdb.dto.WishListDto;
+import com.emerbv.ecommdb.enums.OrderStatus;
+import com.emerbv.ecommdb.enums.ProductStatus;
+import com.emerbv.ecommdb.mapper.CartMapper;
+import com.emerbv.ecommdb.mapper.OrderMapper;
+import com.emerbv.ecommdb.mapper.ProductMapper;
+import com.emerbv.ecommdb.mapper.WishListMapper;
+import com.emerbv.ecommdb.model.Cart;
+import com.emerbv.ecommdb.model.CartItem;
+import com.emerbv.ecommdb.model.Category;
+import com.emerbv.ecommdb.model.Image;
+import com.emerbv.ecommdb.model.Order;
+import com.emerbv.ecommdb.model.OrderItem;
+import com.emerbv.ecommdb.model.Product;
+import com.emerbv.ecommdb.model.ShippingDetails;
+import com.emerbv.ecommdb.model.User;
+import com.emerbv.ecommdb.model.Variant;
+import com.emerbv.ecommdb.model.WishList;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Converts products, variants, a cart, an order and a wishlist of {@code size} entries with the
+ * hand-written mappers and with ModelMapper. Throughput plus the GC profiler's allocation rate per
+ * operation, the two costs the mappers were written to cut. Not part of the test run, launch it with
+ * {@code mvn test-compile} and the {@link #main} method from the test classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoMappingBenchmark {
+
+    @Param({"20", "100"})
+    private int size;
+
+    private final ProductMapper productMapper = new ProductMapper();
+    private final CartMapper cartMapper = new CartMapper();
+    private final OrderMapper orderMapper = new OrderMapper();
+    private final WishListMapper wishListMapper = new WishListMapper();
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    private List<Product> products;
+    private List<Variant> variants;
+    private Cart cart;
+    private Order order;
+    private WishList wishList;
+
+    @Setup
+    public void setUp() {
+        // Carts and wishlists never went through ModelMapper in the services: an ambiguous property
+        // takes the first candidate instead of failing the run
+        modelMapper.getConfiguration().setAmbiguityIgnored(true);
+
+        Category category = new Category("Anime");
+        category.setId(1L);
+        products = new ArrayList<>(size);
+        variants = new ArrayList<>(size * 3);
+        for (long id = 1; id <= size; id++) {
+            Product product = new Product("Product " + id, "Bandai", new BigDecimal("29.90"), 10,
+                    "Description of product " + id, category, 10, ProductStatus.IN_STOCK, 5, 3, false);
+            product.setId(id);
+            List<Variant> productVariants = new ArrayList<>();
+            List<Image> images = new ArrayList<>();
+            for (long i = 1; i <= 3; i++) {
+                Variant variant = new Variant();
+                variant.setId(id * 10 + i);
+                variant.setName("Variant " + i);
+                variant.setPrice(new BigDecimal("29.90"));
+                variant.setInventory(3);
+                variant.setProduct(product);
+                productVariants.add(variant);
+
+                Image image = new Image();
+                image.setId(id * 10 + i);
+                image.setFileName("image-" + i + ".jpg");
+                image.setProduct(product);
+                images.add(image);
+            }
+            product.setVariants(productVariants);
+            product.setImages(images);
+            products.add(product);
+            variants.addAll(productVariants);
+        }
+
+        User user = new User("Ana", "García", "ana@example.com", "secret");
+        user.setId(5L);
+
+        cart = new Cart();
+        cart.setId(4L);
+        cart.setUser(user);
+        for (Product product : products) {
+            CartItem item = new CartItem();
+            item.setId(product.getId());
+            item.setQuantity(2);
+            item.setUnitPrice(product.getPrice());
+            item.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(2)));
+            item.setVariantId(product.getVariants().get(0).getId());
+            item.setVariantName(product.getVariants().get(0).getName());
+            item.setProduct(product);
+            cart.addItem(item);
+        }
+
+        ShippingDetails shipping = new ShippingDetails();
+        shipping.setId(8L);
+        shipping.setAddress("Calle Mayor 1");
+        shipping.setCity("Madrid");
+        shipping.setState("Madrid");
+        shipping.setPostalCode("28013");
+        shipping.setCountry("ES");
+        shipping.setPhoneNumber("+34 600 000 000");
+        shipping.setFullName("Ana García");
+
+        order = new Order();
+        order.setOrderId(100L);
+        order.setUser(user);
+        order.setOrderDate(LocalDateTime.of(2024, 6, 3, 12, 0));
+        order.setOrderStatus(OrderStatus.PAID);
+        order.setShippingDetails(shipping);
+        order.setPaymentMethod("pm_123");
+        order.setPaymentIntentId("pi_123");
+        for (Product product : products) {
+            OrderItem item = new OrderItem(order, product, 2, product.getPrice());
+            item.setVariantId(product.getVariants().get(0).getId());
+            item.setVariantName(product.getVariants().get(0).getName());
+            order.addOrderItem(item);
+        }
+        order.setTotalAmount(order.calculateTotalAmount());
+
+        wishList = new WishList();
+        wishList.setId(3L);
+        wishList.setUser(user);
+        wishList.setCreatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+        wishList.setUpdatedAt(LocalDateTime.of(2024, 2, 1, 9, 0));
+        wishList.setProducts(new HashSet<>(products));
+    }
+
+    @Benchmark
+    public List<ProductDto> productHandWritten() {
+        return convertProducts(products);
+    }
+
+    @Benchmark
+    public List<ProductDto> productModelMapper() {
+        // The way ProductService did before: product, then every image
+        return products.stream()
+                .map(product -> {
+                    ProductDto productDto = modelMapper.map(product, ProductDto.class);
+                    productDto.setImages(product.getImages().stream()
+                            .map(image -> modelMapper.map(image, ImageDto.class))
+                            .toList());
+                    return productDto;
+                })
+                .toList();
+    }
+
+    @Benchmark
+    public List<VariantDto> variantHandWritten() {
+        return variants.stream().map(productMapper::toVariantDto).toList();
+    }
+
+    @Benchmark
+    public List<VariantDto> variantModelMapper() {
+        return variants.stream().map(variant -> modelMapper.map(variant, VariantDto.class)).toList();
+    }
+
+    @Benchmark
+    public CartDto cartHandWritten() {
+        // The products are converted in one batch, as CartService does
+        List<Product> cartProducts = cart.getItems().stream().map(CartItem::getProduct).distinct().toList();
+        Map<Long, ProductDto> productDtos = convertProducts(cartProducts).stream()
+                .collect(Collectors.toMap(ProductDto::getId, Function.identity()));
+        return cartMapper.toDto(cart, productDtos);
+    }
+
+    @Benchmark
+    public CartDto cartModelMapper() {
+        return modelMapper.map(cart, CartDto.class);
+    }
+
+    @Benchmark
+    public OrderDto orderHandWritten() {
+        return orderMapper.toDto(order);
+    }
+
+    @Benchmark
+    public OrderDto orderModelMapper() {
+        // The way OrderService did before
+        return modelMapper.map(order, OrderDto.class);
+    }
+
+    @Benchmark
+    public WishListDto wishListHandWritten() {
+        return wishListMapper.toDto(wishList, convertProducts(List.copyOf(wishList.getProducts())));
+    }
+
+    @Benchmark
+    public WishListDto wishListModelMapper() {
+        return modelMapper.map(wishList, WishListDto.class);
+    }
+
+    private List<ProductDto> convertProducts(List<Product> source) {
+        return source.stream()
+                .map(product -> productMapper.toDto(product, product.getVariants(), product.getImages()))
+                .toList();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DtoMappingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
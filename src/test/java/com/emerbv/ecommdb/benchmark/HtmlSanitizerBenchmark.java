@@ -0,0 +1,65 @@
+package com.emerbv.ecommdb.benchmark;
+
+import com.emerbv.ecommdb.util.HtmlSanitizer;
+import org.jsoup.Jsoup;
+import org.jsoup.safety.Safelist;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sanitizes the fields of an import row (name, brand, category, description) with {@link HtmlSanitizer}
+ * and with a plain {@code Jsoup.clean} per field. Names, brands and categories repeat across rows, so
+ * the memo is warm for them as it is during a real import. Not part of the test run, launch it with
+ * {@code mvn test-compile} and the {@link #main} method from the test classpath.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HtmlSanitizerBenchmark {
+
+    @Param({"plain", "markup"})
+    private String content;
+
+    private final HtmlSanitizer sanitizer = new HtmlSanitizer(10_000);
+    private List<String> fields;
+
+    @Setup
+    public void setUp() {
+        if (content.equals("plain")) {
+            fields = List.of("Figura Son Goku Super Saiyan", "Bandai Spirits", "Anime",
+                    "Figura de PVC de 30 cm con base, caja original y certificado de autenticidad.");
+        } else {
+            fields = List.of("<b>Figura</b> Son Goku", "Bandai &amp; Spirits", "<i>Anime</i>",
+                    "<p>Figura de PVC de <b>30 cm</b> con base.</p><script>alert(1)</script>");
+        }
+    }
+
+    @Benchmark
+    public void sanitizer(Blackhole blackhole) {
+        for (String field : fields) {
+            blackhole.consume(sanitizer.sanitize(field));
+        }
+    }
+
+    @Benchmark
+    public void jsoupClean(Blackhole blackhole) {
+        for (String field : fields) {
+            blackhole.consume(Jsoup.clean(field, Safelist.basic()));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HtmlSanitizerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
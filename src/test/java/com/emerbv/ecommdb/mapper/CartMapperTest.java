@@ -0,0 +1,156 @@
+package com.emerbv.ecommdb.mapper;
+
+import com.emerbv.ecommdb.dto.CartDto;
+import com.emerbv.ecommdb.dto.CartItemDto;
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.enums.ProductStatus;
+import com.emerbv.ecommdb.model.Cart;
+import com.emerbv.ecommdb.model.CartItem;
+import com.emerbv.ecommdb.model.Image;
+import com.emerbv.ecommdb.model.Product;
+import com.emerbv.ecommdb.repository.CartRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartMapperTest {
+
+    private final CartMapper mapper = new CartMapper();
+    private final ProductMapper productMapper = new ProductMapper();
+
+    @Test
+    void copiesCartAndItemFieldsFromEntities() {
+        Product product = ProductMapperTest.product();
+        ProductDto productDto = productMapper.toDto(product, List.of(),
+                List.of(ProductMapperTest.image(31L, "front.jpg", null)));
+
+        CartItem item = new CartItem();
+        item.setId(11L);
+        item.setQuantity(2);
+        item.setUnitPrice(new BigDecimal("29.90"));
+        item.setTotalPrice(new BigDecimal("59.80"));
+        item.setVariantId(21L);
+        item.setVariantName("Standard");
+        item.setProduct(product);
+
+        Cart cart = new Cart();
+        cart.setId(4L);
+        cart.addItem(item);
+
+        CartDto dto = mapper.toDto(cart, Map.of(product.getId(), productDto));
+
+        assertEquals(4L, dto.getCartId());
+        assertEquals(new BigDecimal("59.80"), dto.getTotalAmount());
+        assertEquals(1, dto.getItems().size());
+        CartItemDto itemDto = dto.getItems().iterator().next();
+        assertEquals(11L, itemDto.getItemId());
+        assertEquals(2, itemDto.getQuantity());
+        assertEquals(new BigDecimal("29.90"), itemDto.getUnitPrice());
+        assertEquals(new BigDecimal("59.80"), itemDto.getTotalPrice());
+        assertEquals(21L, itemDto.getVariantId());
+        assertEquals("Standard", itemDto.getVariantName());
+        assertSame(productDto, itemDto.getProduct());
+        assertEquals(productDto.getImages(), itemDto.getImages());
+    }
+
+    @Test
+    void itemWithoutProductHasNoProductOrImages() {
+        CartItem item = new CartItem();
+        item.setId(12L);
+        item.setQuantity(1);
+
+        CartItemDto dto = mapper.toItemDto(item, Map.of());
+
+        assertEquals(12L, dto.getItemId());
+        assertNull(dto.getProduct());
+        assertNull(dto.getImages());
+    }
+
+    @Test
+    void foldsViewRowsIntoCartsInQueryOrder() {
+        Map<Long, CartDto> carts = mapper.toDtos(List.of(
+                line(9L, "20.00", 91L, 7L, 31L),
+                line(9L, "20.00", 92L, 8L, null),
+                line(3L, "0", null, null, null)));
+
+        assertEquals(List.of(9L, 3L), List.copyOf(carts.keySet()));
+        assertEquals(2, carts.get(9L).getItems().size());
+        assertEquals(new BigDecimal("20.00"), carts.get(9L).getTotalAmount());
+        assertTrue(carts.get(3L).getItems().isEmpty());
+    }
+
+    @Test
+    void copiesEveryViewColumn() {
+        CartItemDto dto = mapper.toDtos(List.of(line(9L, "20.00", 91L, 7L, 31L)))
+                .get(9L).getItems().iterator().next();
+
+        assertEquals(91L, dto.getItemId());
+        assertEquals(2, dto.getQuantity());
+        assertEquals(new BigDecimal("10.00"), dto.getUnitPrice());
+        assertEquals(new BigDecimal("20.00"), dto.getTotalPrice());
+        assertEquals(21L, dto.getVariantId());
+        assertEquals("Standard", dto.getVariantName());
+
+        ProductDto product = dto.getProduct();
+        assertEquals(7L, product.getId());
+        assertEquals("Product 7", product.getName());
+        assertEquals("Bandai", product.getBrand());
+        assertEquals(new BigDecimal("12.00"), product.getPrice());
+        assertEquals(4, product.getInventory());
+        assertEquals(ProductStatus.IN_STOCK, product.getStatus());
+
+        assertEquals(1, dto.getImages().size());
+        assertEquals(31L, dto.getImages().get(0).getId());
+        assertEquals("image-31.jpg", dto.getImages().get(0).getFileName());
+        assertEquals(Image.DOWNLOAD_PATH + "31", dto.getImages().get(0).getDownloadUrl());
+        assertEquals(dto.getImages(), product.getImages());
+    }
+
+    @Test
+    void rowOfADeletedProductHasNoProduct() {
+        CartItemDto dto = mapper.toDtos(List.of(line(9L, "20.00", 91L, null, null)))
+                .get(9L).getItems().iterator().next();
+
+        assertNull(dto.getProduct());
+        assertEquals(List.of(), dto.getImages());
+    }
+
+    // Stand-in for the Spring Data projection proxy: getter name to column value
+    private static CartRepository.CartLineView line(Long cartId, String cartTotal, Long itemId, Long productId, Long imageId) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("getCartId", cartId);
+        values.put("getCartTotal", new BigDecimal(cartTotal));
+        if (itemId != null) {
+            values.put("getItemId", itemId);
+            values.put("getQuantity", 2);
+            values.put("getUnitPrice", new BigDecimal("10.00"));
+            values.put("getTotalPrice", new BigDecimal("20.00"));
+            values.put("getVariantId", 21L);
+            values.put("getVariantName", "Standard");
+        }
+        if (productId != null) {
+            values.put("getProductId", productId);
+            values.put("getProductName", "Product " + productId);
+            values.put("getProductBrand", "Bandai");
+            values.put("getProductPrice", new BigDecimal("12.00"));
+            values.put("getProductInventory", 4);
+            values.put("getProductStatus", ProductStatus.IN_STOCK);
+        }
+        if (imageId != null) {
+            values.put("getImageId", imageId);
+            values.put("getImageFileName", "image-" + imageId + ".jpg");
+        }
+        return (CartRepository.CartLineView) Proxy.newProxyInstance(
+                CartRepository.CartLineView.class.getClassLoader(),
+                new Class<?>[]{CartRepository.CartLineView.class},
+                (proxy, method, args) -> method.getDeclaringClass() == Object.class
+                        ? method.invoke(values, args)
+                        : values.get(method.getName()));
+    }
+}
@@ -0,0 +1,116 @@
+package com.emerbv.ecommdb.mapper;
+
+import com.emerbv.ecommdb.dto.OrderDto;
+import com.emerbv.ecommdb.dto.OrderItemDto;
+import com.emerbv.ecommdb.enums.OrderStatus;
+import com.emerbv.ecommdb.model.Order;
+import com.emerbv.ecommdb.model.OrderItem;
+import com.emerbv.ecommdb.model.Product;
+import com.emerbv.ecommdb.model.ShippingDetails;
+import com.emerbv.ecommdb.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderMapperTest {
+
+    private final OrderMapper mapper = new OrderMapper();
+
+    @Test
+    void copiesOrderShippingAndPaymentFields() {
+        Order order = order();
+
+        OrderDto dto = mapper.toDto(order);
+
+        assertEquals(100L, dto.getOrderId());
+        assertEquals(5L, dto.getUserId());
+        assertEquals(order.getOrderDate(), dto.getOrderDate());
+        assertEquals(new BigDecimal("59.80"), dto.getTotalAmount());
+        assertEquals(OrderStatus.PAID, dto.getStatus());
+        assertEquals(8L, dto.getShippingDetailsId());
+        assertEquals("Calle Mayor 1", dto.getShippingAddress());
+        assertEquals("Madrid", dto.getShippingCity());
+        assertEquals("Madrid", dto.getShippingState());
+        assertEquals("28013", dto.getShippingPostalCode());
+        assertEquals("ES", dto.getShippingCountry());
+        assertEquals("+34 600 000 000", dto.getShippingPhoneNumber());
+        assertEquals("Ana García", dto.getShippingFullName());
+        assertEquals("pm_123", dto.getPaymentMethod());
+        assertEquals("pi_123", dto.getPaymentIntentId());
+        assertEquals(1, dto.getItems().size());
+    }
+
+    @Test
+    void copiesItemFieldsIncludingVariant() {
+        OrderItem item = new OrderItem(null, ProductMapperTest.product(), 2, new BigDecimal("29.90"));
+        item.setVariantId(21L);
+        item.setVariantName("Standard");
+
+        OrderItemDto dto = mapper.toItemDto(item);
+
+        assertEquals(7L, dto.getProductId());
+        assertEquals("Goku", dto.getProductName());
+        assertEquals("Bandai", dto.getProductBrand());
+        assertEquals(21L, dto.getVariantId());
+        assertEquals("Standard", dto.getVariantName());
+        assertEquals(2, dto.getQuantity());
+        assertEquals(new BigDecimal("29.90"), dto.getPrice());
+        assertEquals(new BigDecimal("59.80"), dto.getTotalPrice());
+    }
+
+    @Test
+    void itemOfADeletedProductKeepsAPlaceholderName() {
+        OrderItem item = new OrderItem(null, null, 1, new BigDecimal("5.00"));
+
+        OrderItemDto dto = mapper.toItemDto(item);
+
+        assertNull(dto.getProductId());
+        assertEquals("Producto no disponible", dto.getProductName());
+        assertEquals("", dto.getProductBrand());
+        assertNull(dto.getVariantId());
+        assertNull(dto.getVariantName());
+    }
+
+    @Test
+    void orderWithoutUserOrShippingMapsToNulls() {
+        Order order = new Order();
+        order.setOrderId(1L);
+
+        OrderDto dto = mapper.toDto(order);
+
+        assertNull(dto.getUserId());
+        assertNull(dto.getShippingDetailsId());
+        assertNull(dto.getShippingAddress());
+        assertTrue(dto.getItems().isEmpty());
+    }
+
+    private static Order order() {
+        User user = new User("Ana", "García", "ana@example.com", "secret");
+        user.setId(5L);
+
+        ShippingDetails shipping = new ShippingDetails();
+        shipping.setId(8L);
+        shipping.setAddress("Calle Mayor 1");
+        shipping.setCity("Madrid");
+        shipping.setState("Madrid");
+        shipping.setPostalCode("28013");
+        shipping.setCountry("ES");
+        shipping.setPhoneNumber("+34 600 000 000");
+        shipping.setFullName("Ana García");
+
+        Order order = new Order();
+        order.setOrderId(100L);
+        order.setUser(user);
+        order.setOrderDate(LocalDateTime.of(2024, 6, 3, 12, 0));
+        order.setOrderStatus(OrderStatus.PAID);
+        order.setShippingDetails(shipping);
+        order.setPaymentMethod("pm_123");
+        order.setPaymentIntentId("pi_123");
+        order.addOrderItem(new OrderItem(order, ProductMapperTest.product(), 2, new BigDecimal("29.90")));
+        order.setTotalAmount(order.calculateTotalAmount());
+        return order;
+    }
+}
@@ -0,0 +1,137 @@
+package com.emerbv.ecommdb.mapper;
+
+import com.emerbv.ecommdb.dto.ImageDto;
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.dto.VariantDto;
+import com.emerbv.ecommdb.enums.ProductStatus;
+import com.emerbv.ecommdb.model.Category;
+import com.emerbv.ecommdb.model.Image;
+import com.emerbv.ecommdb.model.Product;
+import com.emerbv.ecommdb.model.Variant;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductMapperTest {
+    private static final String STORAGE_KEY = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+    private final ProductMapper mapper = new ProductMapper();
+
+    @Test
+    void copiesEveryProductField() {
+        Product product = product();
+
+        ProductDto dto = mapper.toDto(product, List.of(), List.of());
+
+        assertEquals(7L, dto.getId());
+        assertEquals("Goku", dto.getName());
+        assertEquals("Bandai", dto.getBrand());
+        assertEquals(new BigDecimal("29.90"), dto.getPrice());
+        assertEquals(12, dto.getInventory());
+        assertEquals("<b>Figure</b>", dto.getDescription());
+        assertEquals(15, dto.getDiscountPercentage());
+        assertEquals(ProductStatus.IN_STOCK, dto.getStatus());
+        assertEquals(40, dto.getSalesCount());
+        assertEquals(9, dto.getWishCount());
+        assertTrue(dto.isPreOrder());
+        assertEquals(product.getCreatedAt(), dto.getCreatedAt());
+        assertEquals(3L, dto.getVersion());
+        assertEquals(product.getLastModifiedAt(), dto.getLastModifiedAt());
+        assertEquals(List.of(), dto.getVariants());
+        assertEquals(List.of(), dto.getImages());
+    }
+
+    @Test
+    void categoryIsADetachedCopyWithoutBlobOrProducts() {
+        Product product = product();
+
+        Category category = mapper.toDto(product, List.of(), List.of()).getCategory();
+
+        assertNotSame(product.getCategory(), category);
+        assertEquals(2L, category.getId());
+        assertEquals("Anime", category.getName());
+        assertEquals("anime.png", category.getImageFileName());
+        assertEquals("image/png", category.getImageFileType());
+        assertEquals("/api/v1/categories/2/image", category.getImageDownloadUrl());
+        assertNull(category.getImage());
+        assertNull(category.getProducts());
+    }
+
+    @Test
+    void variantsAreMappedInIdOrder() {
+        Product product = product();
+
+        List<VariantDto> variants = mapper.toDto(product,
+                List.of(variant(22L, "Deluxe", "39.90", 1), variant(21L, "Standard", "29.90", 11)),
+                List.of()).getVariants();
+
+        assertEquals(2, variants.size());
+        assertEquals(21L, variants.get(0).getId());
+        assertEquals("Standard", variants.get(0).getName());
+        assertEquals(new BigDecimal("29.90"), variants.get(0).getPrice());
+        assertEquals(11, variants.get(0).getInventory());
+        assertEquals(22L, variants.get(1).getId());
+        assertEquals("Deluxe", variants.get(1).getName());
+        assertEquals(new BigDecimal("39.90"), variants.get(1).getPrice());
+        assertEquals(1, variants.get(1).getInventory());
+    }
+
+    @Test
+    void imagesAreMappedInIdOrderWithVersionedDownloadUrl() {
+        Product product = product();
+
+        List<ImageDto> images = mapper.toDto(product, List.of(),
+                List.of(image(32L, "back.jpg", STORAGE_KEY), image(31L, "front.jpg", null))).getImages();
+
+        assertEquals(2, images.size());
+        assertEquals(31L, images.get(0).getId());
+        assertEquals("front.jpg", images.get(0).getFileName());
+        assertEquals(Image.DOWNLOAD_PATH + "31", images.get(0).getDownloadUrl());
+        assertEquals(32L, images.get(1).getId());
+        assertEquals("back.jpg", images.get(1).getFileName());
+        assertEquals(Image.DOWNLOAD_PATH + "32?v=" + STORAGE_KEY.substring(0, 16), images.get(1).getDownloadUrl());
+    }
+
+    @Test
+    void productWithoutCategoryHasNoCategoryView() {
+        assertNull(mapper.toCategoryView(null));
+    }
+
+    static Product product() {
+        Category category = new Category("Anime");
+        category.setId(2L);
+        category.setImageFileName("anime.png");
+        category.setImageFileType("image/png");
+        category.setImageDownloadUrl("/api/v1/categories/2/image");
+        category.setProducts(List.of());
+
+        Product product = new Product("Goku", "Bandai", new BigDecimal("29.90"), 12, "<b>Figure</b>",
+                category, 15, ProductStatus.IN_STOCK, 40, 9, true);
+        product.setId(7L);
+        product.setCreatedAt(LocalDateTime.of(2024, 5, 1, 10, 30));
+        product.setVersion(3L);
+        product.setLastModifiedAt(LocalDateTime.of(2024, 6, 2, 8, 0));
+        return product;
+    }
+
+    static Variant variant(Long id, String name, String price, int inventory) {
+        Variant variant = new Variant();
+        variant.setId(id);
+        variant.setName(name);
+        variant.setPrice(new BigDecimal(price));
+        variant.setInventory(inventory);
+        return variant;
+    }
+
+    static Image image(Long id, String fileName, String storageKey) {
+        Image image = new Image();
+        image.setId(id);
+        image.setFileName(fileName);
+        image.setStorageKey(storageKey);
+        return image;
+    }
+}
@@ -0,0 +1,47 @@
+package com.emerbv.ecommdb.mapper;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.dto.WishListDto;
+import com.emerbv.ecommdb.model.User;
+import com.emerbv.ecommdb.model.WishList;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WishListMapperTest {
+
+    private final WishListMapper mapper = new WishListMapper();
+    private final ProductMapper productMapper = new ProductMapper();
+
+    @Test
+    void copiesWishListFieldsAndConvertedProducts() {
+        User user = new User("Ana", "García", "ana@example.com", "secret");
+        user.setId(5L);
+        WishList wishList = new WishList();
+        wishList.setId(3L);
+        wishList.setUser(user);
+        wishList.setCreatedAt(LocalDateTime.of(2024, 1, 1, 9, 0));
+        wishList.setUpdatedAt(LocalDateTime.of(2024, 2, 1, 9, 0));
+        ProductDto product = productMapper.toDto(ProductMapperTest.product(), List.of(), List.of());
+
+        WishListDto dto = mapper.toDto(wishList, List.of(product));
+
+        assertEquals(3L, dto.getId());
+        assertEquals(5L, dto.getUserId());
+        assertEquals(wishList.getCreatedAt(), dto.getCreatedAt());
+        assertEquals(wishList.getUpdatedAt(), dto.getUpdatedAt());
+        assertEquals(Set.of(product), dto.getProducts());
+    }
+
+    @Test
+    void wishListWithoutUserHasNoUserId() {
+        WishListDto dto = mapper.toDto(new WishList(), List.of());
+
+        assertNull(dto.getUserId());
+        assertTrue(dto.getProducts().isEmpty());
+    }
+}
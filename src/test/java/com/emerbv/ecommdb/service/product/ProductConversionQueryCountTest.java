@@ -0,0 +1,125 @@
+package com.emerbv.ecommdb.service.product;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.enums.ProductStatus;
+import com.emerbv.ecommdb.mapper.ProductMapper;
+import com.emerbv.ecommdb.model.Category;
+import com.emerbv.ecommdb.model.Image;
+import com.emerbv.ecommdb.model.Product;
+import com.emerbv.ecommdb.model.Variant;
+import com.emerbv.ecommdb.repository.ProductRepository;
+import com.emerbv.ecommdb.service.storage.IImageContentService;
+import com.emerbv.ecommdb.util.HtmlSanitizer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Regression guard for the batch conversion: the statements issued by getConvertedProducts
+ * must not grow with the number of products converted.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@Import({ProductService.class, ProductMapper.class, HtmlSanitizer.class})
+class ProductConversionQueryCountTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @MockitoBean
+    private IImageContentService imageContentService;
+
+    private Statistics statistics;
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        category = entityManager.persist(new Category("Figures"));
+    }
+
+    @Test
+    void conversionRunsTheSameStatementsWhateverThePageSize() {
+        long fewProducts = statementsToConvert(persistProducts("small", 3));
+        long manyProducts = statementsToConvert(persistProducts("large", 40));
+
+        assertEquals(fewProducts, manyProducts);
+        // One query for the variants and one for the images of the whole page
+        assertTrue(manyProducts <= 2, "Expected at most 2 statements, got " + manyProducts);
+    }
+
+    @Test
+    void convertedProductsKeepTheirVariantsAndImages() {
+        List<Long> ids = persistProducts("content", 5);
+        entityManager.clear();
+
+        List<ProductDto> dtos = productService.getConvertedProducts(productRepository.findAllById(ids));
+
+        assertEquals(5, dtos.size());
+        dtos.forEach(dto -> {
+            assertEquals(2, dto.getVariants().size());
+            assertEquals(2, dto.getImages().size());
+        });
+    }
+
+    private long statementsToConvert(List<Long> ids) {
+        entityManager.clear();
+        List<Product> products = productRepository.findAllById(ids);
+
+        statistics.clear();
+        productService.getConvertedProducts(products);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<Long> persistProducts(String brand, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = new Product("Product " + i, brand, new BigDecimal("10.00"), 5,
+                    "Description " + i, category, 0, ProductStatus.IN_STOCK, 0, 0, false);
+            entityManager.persist(product);
+            for (int v = 0; v < 2; v++) {
+                Variant variant = new Variant();
+                variant.setName("Variant " + v);
+                variant.setPrice(new BigDecimal("10.00"));
+                variant.setInventory(1);
+                variant.setProduct(product);
+                entityManager.persist(variant);
+
+                Image image = new Image();
+                image.setFileName("image-" + i + "-" + v + ".jpg");
+                image.setFileType("image/jpeg");
+                image.setProduct(product);
+                entityManager.persist(image);
+            }
+            ids.add(product.getId());
+        }
+        entityManager.flush();
+        return ids;
+    }
+}
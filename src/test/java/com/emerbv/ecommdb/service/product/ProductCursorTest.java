@@ -0,0 +1,78 @@
+package com.emerbv.ecommdb.service.product;
+
+import com.emerbv.ecommdb.enums.ProductStatus;
+import com.emerbv.ecommdb.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.KeysetScrollPosition;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductCursorTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"price", "name", "createdAt", "salesCount", "wishCount", "discountPercentage"})
+    void roundTripsEverySortField(String sortField) {
+        Product product = product("Goku", new BigDecimal("29.90"), LocalDateTime.of(2024, 5, 1, 10, 30, 15));
+
+        KeysetScrollPosition position = ProductCursor.after(sortField, product);
+        KeysetScrollPosition decoded = ProductCursor.decode(sortField, ProductCursor.encode(sortField, position));
+
+        assertEquals(position.getKeys(), decoded.getKeys());
+        assertEquals(7L, decoded.getKeys().get("id"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"price", "name", "createdAt"})
+    void roundTripsANullSortValue(String sortField) {
+        Product product = product(null, null, null);
+
+        KeysetScrollPosition decoded = ProductCursor.decode(sortField,
+                ProductCursor.encode(sortField, ProductCursor.after(sortField, product)));
+
+        assertEquals(Map.of("id", 7L), decoded.getKeys());
+    }
+
+    @Test
+    void keepsNamesThatAreEmptyOrContainTheSeparator() {
+        for (String name : new String[]{"", "Goku\nSSJ", "-", "="}) {
+            Product product = product(name, BigDecimal.ONE, LocalDateTime.now());
+
+            KeysetScrollPosition decoded = ProductCursor.decode("name",
+                    ProductCursor.encode("name", ProductCursor.after("name", product)));
+
+            assertEquals(name, decoded.getKeys().get("name"));
+        }
+    }
+
+    @Test
+    void emptyCursorStartsFromTheBeginning() {
+        assertTrue(ProductCursor.decode("price", null).isInitial());
+        assertTrue(ProductCursor.decode("price", " ").isInitial());
+    }
+
+    @Test
+    void rejectsCursorsOfAnotherSortOrGarbage() {
+        String cursor = ProductCursor.encode("price",
+                ProductCursor.after("price", product("Goku", BigDecimal.TEN, LocalDateTime.now())));
+
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode("name", cursor));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode("price", "not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> ProductCursor.decode("price", "cHJpY2UKPWFiYwo3"));
+    }
+
+    private static Product product(String name, BigDecimal price, LocalDateTime createdAt) {
+        Product product = new Product(name, "Bandai", price, 12, "Figure", null, 15,
+                ProductStatus.IN_STOCK, 40, 9, false);
+        product.setId(7L);
+        product.setCreatedAt(createdAt);
+        return product;
+    }
+}
@@ -0,0 +1,123 @@
+package com.emerbv.ecommdb.service.search;
+
+import com.emerbv.ecommdb.dto.ProductDto;
+import com.emerbv.ecommdb.model.Category;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest {
+
+    @Test
+    void tokenizeFoldsAccentsCaseAndMarkup() {
+        assertEquals(List.of("nino", "grande", "camion"),
+                ProductSearchIndex.tokenize("<p>Niño GRANDE&nbsp;con Camión</p>"));
+    }
+
+    @Test
+    void tokenizeDropsStopWordsAndSeparators() {
+        assertEquals(List.of("figura", "goku", "ssj", "30cm", "coleccion"),
+                ProductSearchIndex.tokenize("Figura de Goku (SSJ) - 30cm, para la colección"));
+        assertEquals(List.of(), ProductSearchIndex.tokenize("  de la  "));
+        assertEquals(List.of(), ProductSearchIndex.tokenize(null));
+    }
+
+    @Test
+    void editDistanceCountsInsertionsDeletionsAndSubstitutions() {
+        assertEquals(0, ProductSearchIndex.editDistance("goku", "goku", 2));
+        assertEquals(1, ProductSearchIndex.editDistance("goku", "gokuu", 2));
+        assertEquals(1, ProductSearchIndex.editDistance("goku", "gku", 2));
+        assertEquals(1, ProductSearchIndex.editDistance("goku", "gaku", 2));
+        assertEquals(2, ProductSearchIndex.editDistance("vegeta", "vejeda", 2));
+    }
+
+    @Test
+    void editDistanceGivesUpPastTheLimit() {
+        assertEquals(2, ProductSearchIndex.editDistance("piccolo", "freezer", 1));
+        assertEquals(3, ProductSearchIndex.editDistance("piccolo", "freezer", 2));
+    }
+
+    @Test
+    void everyQueryTermHasToMatch() {
+        ProductSearchIndex index = ProductSearchIndex.of(List.of(
+                product(1L, "Goku figure", "Bandai", "Anime", null),
+                product(2L, "Vegeta figure", "Bandai", "Anime", null),
+                product(3L, "Goku poster", "Abystyle", "Posters", null)));
+
+        assertEquals(List.of(1L), index.search("goku figure"));
+        assertEquals(List.of(), index.search("vegeta poster"));
+        assertEquals(List.of(), index.search("de la"));
+    }
+
+    @Test
+    void matchesPrefixesAndTypos() {
+        ProductSearchIndex index = ProductSearchIndex.of(List.of(
+                product(1L, "Piccolo", "Bandai", "Anime", null),
+                product(2L, "Freezer", "Bandai", "Anime", null)));
+
+        assertEquals(List.of(1L), index.search("picc"));
+        assertEquals(List.of(1L), index.search("picolo"));
+        assertEquals(List.of(2L), index.search("freezr"));
+    }
+
+    @Test
+    void nameMatchesRankAboveDescriptionMatches() {
+        ProductSearchIndex index = ProductSearchIndex.of(List.of(
+                product(1L, "Poster", "Abystyle", "Posters", "Goku poster"),
+                product(2L, "Goku", "Bandai", "Anime", "Figure")));
+
+        assertEquals(List.of(2L, 1L), index.search("goku"));
+    }
+
+    @Test
+    void exactTermsRankAbovePrefixAndFuzzyHits() {
+        ProductSearchIndex index = ProductSearchIndex.of(List.of(
+                product(1L, "Gokus", "Bandai", "Anime", null),
+                product(2L, "Goku", "Bandai", "Anime", null)));
+
+        assertEquals(List.of(2L, 1L), index.search("goku"));
+    }
+
+    @Test
+    void shorterDocumentsRankHigherForTheSameTerm() {
+        ProductSearchIndex index = ProductSearchIndex.of(List.of(
+                product(1L, "Goku", "Bandai", "Anime", "Big figure with base stand and extra hands"),
+                product(2L, "Goku", "Bandai", "Anime", null)));
+
+        assertEquals(List.of(2L, 1L), index.search("goku"));
+    }
+
+    @Test
+    void equalScoresAreOrderedById() {
+        ProductSearchIndex index = ProductSearchIndex.of(List.of(
+                product(5L, "Goku", "Bandai", "Anime", null),
+                product(3L, "Goku", "Bandai", "Anime", null)));
+
+        assertEquals(List.of(3L, 5L), index.search("goku"));
+    }
+
+    @Test
+    void putReplacesAndRemoveForgetsAProduct() {
+        ProductSearchIndex index = ProductSearchIndex.of(List.of(product(1L, "Goku", "Bandai", "Anime", null)));
+
+        index.put(product(1L, "Vegeta", "Bandai", "Anime", null));
+        assertEquals(List.of(), index.search("goku"));
+        assertEquals(List.of(1L), index.search("vegeta"));
+
+        index.remove(1L);
+        assertEquals(0, index.size());
+        assertEquals(List.of(), index.search("vegeta"));
+    }
+
+    private static ProductDto product(Long id, String name, String brand, String category, String description) {
+        ProductDto product = new ProductDto();
+        product.setId(id);
+        product.setName(name);
+        product.setBrand(brand);
+        product.setCategory(new Category(category));
+        product.setDescription(description);
+        return product;
+    }
+}
@@ -0,0 +1,77 @@
+package com.emerbv.ecommdb.util;
+
+import org.jsoup.Jsoup;
+import org.jsoup.safety.Safelist;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HtmlSanitizerTest {
+
+    static Stream<String> inputs() {
+        return Stream.of(
+                // Plain text, taken by the fast path
+                "",
+                "Goku",
+                "Figura Son Goku Super Saiyan 30 cm",
+                "Bandai Spirits",
+                "Café, niño y pingüino: 100% ¡original!",
+                "Precio 29.90 € \"edición\" limitada's",
+                "日本のフィギュア",
+                // Whitespace the pretty printer would normalise
+                " leading space",
+                "trailing space ",
+                "double  space",
+                "tab\tseparated",
+                "line\nbreak",
+                "non breaking",
+                // Markup and entities
+                "<b>Bold</b> name",
+                "<p>Paragraph</p><p>Another</p>",
+                "<a href=\"https://example.com\">link</a>",
+                "Tom &amp; Jerry",
+                "Tom & Jerry",
+                "5 < 6 > 4",
+                "&lt;b&gt;escaped&lt;/b&gt;",
+                // Hostile input
+                "<script>alert('xss')</script>",
+                "<img src=x onerror=alert(1)>",
+                "<a href=\"javascript:alert(1)\">click</a>",
+                "<svg/onload=alert(1)>",
+                "\"><script>alert(document.cookie)</script>",
+                "<iframe src=\"https://evil.example\"></iframe>",
+                "<div style=\"background:url(javascript:alert(1))\">x</div>",
+                "<<script>script>alert(1)<</script>/script>",
+                "ctrl\u0000char\u0007",
+                "lone \uD83D surrogate",
+                "emoji 😀 pair",
+                // Longer than the memoized length
+                "Descripción larga ".repeat(30),
+                "<b>Descripción</b> larga ".repeat(30) + "<script>alert(1)</script>"
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("inputs")
+    void everyPathMatchesJsoupClean(String input) {
+        byte[] expected = Jsoup.clean(input, Safelist.basic()).getBytes(StandardCharsets.UTF_8);
+        HtmlSanitizer sanitizer = new HtmlSanitizer(100);
+
+        // First call: fast path, or cleaned and memoized; second call: served from the memo
+        assertArrayEquals(expected, sanitizer.sanitize(input).getBytes(StandardCharsets.UTF_8));
+        assertArrayEquals(expected, sanitizer.sanitize(input).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @ParameterizedTest
+    @MethodSource("inputs")
+    void fastPathOnlyTakesInputThatCleanLeavesUnchanged(String input) {
+        if (HtmlSanitizer.isPlainText(input)) {
+            assertEquals(input, Jsoup.clean(input, Safelist.basic()));
+        }
+    }
+}